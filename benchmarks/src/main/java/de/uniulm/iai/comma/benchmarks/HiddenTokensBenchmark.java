@@ -0,0 +1,71 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.benchmarks;
+
+import java.util.List;
+
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import de.uniulm.iai.comma.lib.ast.javasource.CollectorTokenSource;
+import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree;
+import de.uniulm.iai.comma.measurement.ast.AstAnalyzer$;
+import scala.collection.immutable.IndexedSeq;
+
+/**
+ * Attaching the comments to the nodes of the parsed tree, see
+ * <code>AstAnalyzer.attachHiddenTokens</code>.
+ * <p>
+ * The comments are added to the tree, so each invocation works on a freshly
+ * parsed tree. Only use this benchmark with sources large enough to hide the
+ * overhead of the per invocation setup.
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class HiddenTokensBenchmark extends SourceBenchmark {
+
+    private CommonTokenStream tokens;
+
+    private List<Token> comments;
+
+    private IndexedSeq<EnhancedCommonTree> tree;
+
+    @Override
+    protected void prepare() {
+        CollectorTokenSource tokenSource = commentCollector(lexer(source));
+        tokens = new CommonTokenStream(tokenSource);
+        tokens.fill();
+        comments = tokenSource.getCollectedTokens();
+    }
+
+    @Setup(Level.Invocation)
+    public void parse() throws RecognitionException {
+        tree = asIndexedSeq(parse(tokens));
+    }
+
+    @Benchmark
+    public Object attachHiddenTokens() {
+        return AstAnalyzer$.MODULE$.attachHiddenTokens(tree, tokens.size(), comments);
+    }
+}
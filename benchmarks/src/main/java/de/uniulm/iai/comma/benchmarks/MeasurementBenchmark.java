@@ -0,0 +1,58 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.benchmarks;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import de.uniulm.iai.comma.measurement.ast.CommentVisitor$;
+import de.uniulm.iai.comma.measurement.processor.JavaMeasurement;
+import de.uniulm.iai.comma.measurement.processor.MetricProfile;
+import de.uniulm.iai.comma.model.SourceStructure;
+
+/**
+ * The complete analysis of a source by {@link JavaMeasurement}, from lexing to
+ * the evaluation of the visitors. The analysis skips comments unless a visitor
+ * needs them, so adding a comment visitor measures the analysis including
+ * comment preservation, collection and attachment. The metric profile
+ * selects the visitors of the analysis.
+ */
+@State(Scope.Benchmark)
+public class MeasurementBenchmark extends SourceBenchmark {
+
+    /** Whether a comment visitor is added to the analysis. */
+    @Param({ "false", "true" })
+    public boolean comments;
+
+    /** Name of the metric profile of the analysis. */
+    @Param({ "structure-only", "default", "full" })
+    public String profile;
+
+    @Benchmark
+    public SourceStructure measure() {
+        JavaMeasurement measurement = JavaMeasurement.apply(PACKAGE + "/Synthetic.java",
+                MetricProfile.apply(profile));
+        if (comments) {
+            measurement.addVisitor(CommentVisitor$.MODULE$.createVisitor());
+        }
+        return measurement.run(new ANTLRStringStream(source));
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.benchmarks;
+
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree;
+import de.uniulm.iai.comma.lib.ast.javasource.JavaParser;
+
+/**
+ * Parsing of a tokenized source by {@link JavaParser#javaSource()}. The
+ * tokens are read once, so lexing is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+public class ParserBenchmark extends SourceBenchmark {
+
+    private CommonTokenStream tokens;
+
+    @Override
+    protected void prepare() {
+        tokens = new CommonTokenStream(commentCollector(lexer(source)));
+        tokens.fill();
+    }
+
+    @Benchmark
+    public EnhancedCommonTree parse() throws RecognitionException {
+        return parse(tokens);
+    }
+}
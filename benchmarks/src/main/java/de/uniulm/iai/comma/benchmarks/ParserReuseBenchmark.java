@@ -0,0 +1,52 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.benchmarks;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree;
+import de.uniulm.iai.comma.lib.ast.javasource.JavaSourceParser;
+
+/**
+ * Lexing and parsing of a source, either by a lexer and parser created for
+ * the source or by the {@link JavaSourceParser} of the thread. Run with
+ * <code>-prof gc</code> and few lines to compare the allocation per file.
+ */
+@State(Scope.Benchmark)
+public class ParserReuseBenchmark extends SourceBenchmark {
+
+    @Benchmark
+    public EnhancedCommonTree created() throws RecognitionException {
+        return parse(new CommonTokenStream(commentCollector(lexer(source))));
+    }
+
+    @Benchmark
+    public EnhancedCommonTree reused() throws RecognitionException {
+        JavaSourceParser parser = JavaSourceParser.get();
+        try {
+            return parser.parse(new ANTLRStringStream(source));
+        } finally {
+            parser.release();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.benchmarks;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uniulm.iai.comma.lib.ast.javasource.CollectorTokenSource;
+import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree;
+import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTreeAdapter;
+import de.uniulm.iai.comma.lib.ast.javasource.JavaLexer;
+import de.uniulm.iai.comma.lib.ast.javasource.JavaParser;
+import de.uniulm.iai.comma.measurement.ast.AstAnalyzer$;
+import scala.collection.JavaConversions;
+import scala.collection.immutable.IndexedSeq;
+
+/**
+ * Common parameters and setup of the benchmarks, each one analyzing a
+ * synthetic source generated by {@link SyntheticSource}.
+ * <p>
+ * The helper methods set up lexer and parser the same way the analysis does,
+ * so each benchmark can prepare the input of the stage it measures.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class SourceBenchmark {
+
+    static final String PACKAGE = "synthetic";
+
+    /** Minimum number of lines of the source. */
+    @Param({ "250", "2500" })
+    public int lines;
+
+    /** Nesting depth of control statements within methods. */
+    @Param({ "2", "8" })
+    public int depth;
+
+    /** Percentage of statements and declarations preceded by a comment. */
+    @Param({ "0", "50" })
+    public int commentDensity;
+
+    protected String source;
+
+    @Setup(Level.Trial)
+    public void generateSource() throws Exception {
+        source = SyntheticSource.generate(PACKAGE, lines, depth, commentDensity);
+        prepare();
+    }
+
+    /**
+     * Prepare the input of the measured stage once the source is generated.
+     * The order of setup methods of the same level is not defined, so
+     * benchmarks override this method instead of declaring their own.
+     */
+    protected void prepare() throws Exception {
+    }
+
+    /**
+     * Create a lexer which preserves all comments.
+     */
+    static JavaLexer lexer(String source) {
+        JavaLexer lexer = new JavaLexer(new ANTLRStringStream(source));
+        lexer.mPreserveBlockComments = true;
+        lexer.mPreserveJavaDocComments = true;
+        lexer.mPreserveLineComments = true;
+        return lexer;
+    }
+
+    /**
+     * Create a token source collecting the comments of the given lexer.
+     */
+    static CollectorTokenSource commentCollector(JavaLexer lexer) {
+        return new CollectorTokenSource(lexer, Arrays.asList(JavaLexer.BLOCK_COMMENT, JavaLexer.LINE_COMMENT,
+                JavaLexer.JAVADOC_COMMENT));
+    }
+
+    /**
+     * Parse the given tokens, the stream is reset before.
+     */
+    static EnhancedCommonTree parse(CommonTokenStream tokens) throws RecognitionException {
+        tokens.reset();
+        JavaParser parser = new JavaParser(tokens);
+        parser.enableErrorMessageCollection(true);
+        parser.setTreeAdaptor(new EnhancedCommonTreeAdapter());
+        EnhancedCommonTree tree = (EnhancedCommonTree) parser.javaSource().getTree();
+        if (parser.hasErrors()) {
+            throw new IllegalStateException("Cannot parse synthetic source: " + parser.getMessages());
+        }
+        return tree;
+    }
+
+    /**
+     * Parse the given source and attach its comments to the tree, as done by
+     * the analysis before the tree is walked.
+     */
+    static IndexedSeq<EnhancedCommonTree> analyzedTree(String source) throws RecognitionException {
+        CollectorTokenSource tokenSource = commentCollector(lexer(source));
+        CommonTokenStream tokens = new CommonTokenStream(tokenSource);
+        IndexedSeq<EnhancedCommonTree> tree = asIndexedSeq(parse(tokens));
+        AstAnalyzer$.MODULE$.attachHiddenTokens(tree, tokens.size(), tokenSource.getCollectedTokens());
+        return tree;
+    }
+
+    static IndexedSeq<EnhancedCommonTree> asIndexedSeq(EnhancedCommonTree tree) {
+        return JavaConversions.asScalaBuffer(Collections.singletonList(tree)).toIndexedSeq();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.buschmais.jqassistant.core.plugin.api.PluginConfigurationReader;
+import com.buschmais.jqassistant.core.plugin.api.PluginRepositoryException;
+import com.buschmais.jqassistant.core.plugin.impl.ModelPluginRepositoryImpl;
+import com.buschmais.jqassistant.core.plugin.impl.PluginConfigurationReaderImpl;
+import com.buschmais.jqassistant.core.plugin.impl.ScannerPluginRepositoryImpl;
+import com.buschmais.jqassistant.core.plugin.impl.ScopePluginRepositoryImpl;
+import com.buschmais.jqassistant.core.scanner.api.ScannerContext;
+import com.buschmais.jqassistant.core.scanner.impl.ScannerImpl;
+import com.buschmais.jqassistant.core.store.impl.EmbeddedGraphStore;
+
+import de.uniulm.iai.comma.measurement.processor.JavaMeasurement;
+import de.uniulm.iai.comma.model.SourceStructure;
+import de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner.JavaSourceScope;
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.JavaCompilationUnitDescriptor;
+import de.uniulm.iai.jqassistant.javasrc.plugin.scanner.ScannerHelper;
+import de.uniulm.iai.jqassistant.javasrc.plugin.scanner.StructureWriter;
+
+/**
+ * Writing the analysis result of a source to an embedded store, i.e. the
+ * compilation unit, its types, members, dependencies and measures, within one
+ * transaction.
+ * <p>
+ * Each invocation writes a source of another package, so all types are new to
+ * the store. The store is reset before each iteration.
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class StoreWriteBenchmark extends SourceBenchmark {
+
+    private File directory;
+
+    private EmbeddedGraphStore store;
+
+    private ScannerContext context;
+
+    private ScannerHelper helper;
+
+    private int sources;
+
+    private String path;
+
+    private SourceStructure structure;
+
+    @Setup(Level.Trial)
+    public void startStore() throws IOException, PluginRepositoryException {
+        directory = Files.createTempDirectory("store").toFile();
+        PluginConfigurationReader pluginConfigurationReader = new PluginConfigurationReaderImpl();
+        store = new EmbeddedGraphStore(directory.getAbsolutePath());
+        store.start(new ModelPluginRepositoryImpl(pluginConfigurationReader).getDescriptorTypes());
+        context = new ScannerImpl(store, new ScannerPluginRepositoryImpl(pluginConfigurationReader)
+                .getScannerPlugins(Collections.<String, Object> emptyMap()),
+                new ScopePluginRepositoryImpl(pluginConfigurationReader).getScopes()).getContext();
+        helper = ScannerHelper.apply(context);
+    }
+
+    @Setup(Level.Iteration)
+    public void openScope() {
+        store.reset();
+        store.beginTransaction();
+        JavaSourceScope.CLASSPATH.create(context);
+        store.commitTransaction();
+    }
+
+    @Setup(Level.Invocation)
+    public void analyze() {
+        String packageName = PACKAGE + sources++;
+        path = packageName + "/Synthetic.java";
+        structure = JavaMeasurement.apply(path).run(
+                new StringReader(SyntheticSource.generate(packageName, lines, depth, commentDensity)));
+        if (structure.failure().isDefined()) {
+            throw new IllegalStateException("Cannot analyze synthetic source", structure.failure().get());
+        }
+    }
+
+    @Benchmark
+    public JavaCompilationUnitDescriptor write() {
+        store.beginTransaction();
+        JavaCompilationUnitDescriptor compilationUnit = helper.createCompilationUnit(path, "Synthetic.java");
+        StructureWriter.apply(helper).write(structure, compilationUnit);
+        store.commitTransaction();
+        return compilationUnit;
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeScope() {
+        store.beginTransaction();
+        JavaSourceScope.CLASSPATH.destroy(context);
+        store.commitTransaction();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopStore() throws IOException {
+        store.stop();
+        Files.walkFileTree(directory.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
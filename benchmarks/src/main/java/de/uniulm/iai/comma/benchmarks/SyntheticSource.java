@@ -0,0 +1,179 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.benchmarks;
+
+/**
+ * Generates java sources of a given size, nesting depth and comment density.
+ * <p>
+ * The generated sources are deterministic, so results of different runs are
+ * comparable. Each method contains control statements nested up to the given
+ * depth. The comment density is the percentage of statements and declarations
+ * preceded by a comment, cycling through line, block and javadoc comments.
+ * </p>
+ */
+public final class SyntheticSource {
+
+    private final StringBuilder source = new StringBuilder();
+
+    private final int depth;
+
+    private final int commentDensity;
+
+    private int lines;
+
+    private int commentable;
+
+    private SyntheticSource(int depth, int commentDensity) {
+        this.depth = depth;
+        this.commentDensity = commentDensity;
+    }
+
+    /**
+     * Generate a compilation unit.
+     *
+     * @param packageName
+     *            The package of the generated class.
+     * @param lines
+     *            The minimum number of lines.
+     * @param depth
+     *            The nesting depth of control statements within methods.
+     * @param commentDensity
+     *            The percentage of statements and declarations preceded by a
+     *            comment, from 0 to 100.
+     * @return The source.
+     */
+    public static String generate(String packageName, int lines, int depth, int commentDensity) {
+        if (lines < 1 || depth < 0 || commentDensity < 0 || commentDensity > 100) {
+            throw new IllegalArgumentException("Invalid source parameters: " + lines + " lines, depth " + depth
+                    + ", comment density " + commentDensity);
+        }
+        return new SyntheticSource(depth, commentDensity).compilationUnit(packageName, lines);
+    }
+
+    private String compilationUnit(String packageName, int minimumLines) {
+        line(0, "package " + packageName + ";");
+        line(0, "");
+        line(0, "import java.util.ArrayList;");
+        line(0, "import java.util.List;");
+        line(0, "");
+        comment(0, "Generated class.");
+        line(0, "public class Synthetic {");
+        line(1, "private final List<String> values = new ArrayList<String>();");
+        int method = 0;
+        while (lines < minimumLines) {
+            line(0, "");
+            method(method++);
+        }
+        line(0, "}");
+        return source.toString();
+    }
+
+    private void method(int index) {
+        comment(1, "Method " + index + ".");
+        line(1, "public int method" + index + "(int a, List<String> b) throws Exception {");
+        line(2, "int result = 0;");
+        block(2, 0);
+        comment(2, "Result.");
+        line(2, "return result;");
+        line(1, "}");
+    }
+
+    /**
+     * Write a control statement at the given level, containing the statements
+     * of the next level. The kind of statement cycles with the level.
+     */
+    private void block(int indent, int level) {
+        if (level == depth) {
+            comment(indent, "Innermost statement.");
+            line(indent, "result += a > " + level + " ? b.get(" + level + ").length() : values.size();");
+            return;
+        }
+        comment(indent, "Level " + level + ".");
+        switch (level % 5) {
+        case 0:
+            line(indent, "if (a > " + level + " && !b.isEmpty()) {");
+            block(indent + 1, level + 1);
+            line(indent, "} else {");
+            line(indent + 1, "result--;");
+            line(indent, "}");
+            break;
+        case 1:
+            line(indent, "for (int i" + level + " = 0; i" + level + " < a; i" + level + "++) {");
+            block(indent + 1, level + 1);
+            line(indent, "}");
+            break;
+        case 2:
+            line(indent, "while (result < a || result > " + level + ") {");
+            block(indent + 1, level + 1);
+            line(indent + 1, "break;");
+            line(indent, "}");
+            break;
+        case 3:
+            line(indent, "try {");
+            block(indent + 1, level + 1);
+            line(indent, "} catch (IllegalStateException e" + level + ") {");
+            line(indent + 1, "result = -1;");
+            line(indent, "}");
+            break;
+        default:
+            line(indent, "switch (a) {");
+            line(indent, "case " + level + ":");
+            block(indent + 1, level + 1);
+            line(indent + 1, "break;");
+            line(indent, "default:");
+            line(indent + 1, "result++;");
+            line(indent, "}");
+            break;
+        }
+    }
+
+    /**
+     * Write a comment if it is due according to the comment density. The
+     * density is spread evenly over all places a comment may appear.
+     */
+    private void comment(int indent, String text) {
+        int before = commentable * commentDensity / 100;
+        commentable++;
+        int after = commentable * commentDensity / 100;
+        if (after == before) {
+            return;
+        }
+        switch (after % 3) {
+        case 0:
+            line(indent, "// " + text);
+            break;
+        case 1:
+            line(indent, "/* " + text);
+            line(indent, " * Block comment. */");
+            break;
+        default:
+            line(indent, "/**");
+            line(indent, " * " + text);
+            line(indent, " */");
+            break;
+        }
+    }
+
+    private void line(int indent, String text) {
+        for (int i = 0; i < indent; i++) {
+            source.append("    ");
+        }
+        source.append(text).append('\n');
+        lines++;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.benchmarks;
+
+import org.antlr.runtime.RecognitionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree;
+import de.uniulm.iai.comma.measurement.processor.JavaMeasurement;
+import scala.collection.immutable.IndexedSeq;
+
+/**
+ * Walking a parsed tree with all visitors of a {@link JavaMeasurement}, i.e.
+ * the structure visitor and its sub-visitors, the package and the import
+ * visitor.
+ * <p>
+ * The tree is parsed once per trial, only the walk is measured. Besides the
+ * common sizes, a source of 10000 lines tells if the time per line stays the
+ * same for large sources.
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class TreeWalkBenchmark extends SourceBenchmark {
+
+    /**
+     * Minimum number of lines of the source, hides the common parameter to
+     * add a larger source. JMH sets both fields to the same value.
+     */
+    @Param({ "250", "2500", "10000" })
+    public int lines;
+
+    private IndexedSeq<EnhancedCommonTree> tree;
+
+    @Override
+    protected void prepare() throws RecognitionException {
+        tree = analyzedTree(source);
+    }
+
+    @Benchmark
+    public JavaMeasurement walk() {
+        JavaMeasurement measurement = new JavaMeasurement("Synthetic.java");
+        measurement.walk(tree);
+        return measurement;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.benchmarks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.tree.Tree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree;
+import de.uniulm.iai.comma.measurement.ast.CommentVisitor$;
+import de.uniulm.iai.comma.measurement.ast.CyclomaticComplexityVisitor$;
+import de.uniulm.iai.comma.measurement.ast.NPathComplexityVisitor$;
+import de.uniulm.iai.comma.measurement.ast.NcscssVisitor$;
+import de.uniulm.iai.comma.measurement.ast.TreeVisitor;
+import de.uniulm.iai.comma.measurement.ast.TreeVisitorFactory;
+import scala.Option;
+
+/**
+ * A single {@link TreeVisitor} visiting all nodes of a parsed tree with
+ * comments attached, followed by the evaluation of its measured values.
+ * <p>
+ * The visitor sees the whole compilation unit as one topmost structure, so the
+ * costs of the structure visitor are not included.
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class VisitorBenchmark extends SourceBenchmark {
+
+    @Param({ "ncscss", "cyclomatic", "npath", "comment" })
+    public String visitor;
+
+    private TreeVisitorFactory factory;
+
+    private EnhancedCommonTree[] nodes;
+
+    @Override
+    protected void prepare() throws RecognitionException {
+        factory = factory(visitor);
+        nodes = preOrder(analyzedTree(source).head());
+    }
+
+    @Benchmark
+    public Object visit() {
+        TreeVisitor treeVisitor = factory.createVisitor(Option.<String> empty());
+        for (EnhancedCommonTree node : nodes) {
+            treeVisitor.visit(node, true);
+        }
+        return treeVisitor.measuredValues();
+    }
+
+    private static TreeVisitorFactory factory(String visitor) {
+        switch (visitor) {
+        case "ncscss":
+            return NcscssVisitor$.MODULE$;
+        case "cyclomatic":
+            return CyclomaticComplexityVisitor$.MODULE$;
+        case "npath":
+            return NPathComplexityVisitor$.MODULE$;
+        case "comment":
+            return CommentVisitor$.MODULE$;
+        default:
+            throw new IllegalArgumentException("Unknown visitor " + visitor);
+        }
+    }
+
+    /**
+     * Return all nodes in the order they are visited by a tree walk, so the
+     * traversal itself is not part of the measurement.
+     */
+    private static EnhancedCommonTree[] preOrder(EnhancedCommonTree root) {
+        Deque<Tree> pending = new ArrayDeque<>();
+        List<EnhancedCommonTree> nodes = new ArrayList<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Tree node = pending.pop();
+            nodes.add((EnhancedCommonTree) node);
+            for (int i = node.getChildCount() - 1; i >= 0; i--) {
+                pending.push(node.getChild(i));
+            }
+        }
+        return nodes.toArray(new EnhancedCommonTree[nodes.size()]);
+    }
+}
@@ -88,9 +88,10 @@
 
 grammar Java;
 
+// The grammar does not backtrack globally. Decisions which cannot be resolved by
+// LL(*) analysis use syntactic predicates, which pick the same alternatives as
+// the former backtracking grammar did.
 options {
-    backtrack = true;
-    memoize = true;
     output = AST;
     ASTLabelType = CommonTree;
 }
@@ -402,6 +403,22 @@ public boolean hasErrors() {
 
     return mMessages != null && mMessages.size() > 0;
 }
+
+/**
+ * Resets the parser, including collected error messages, so it can be used
+ * for another token stream.
+ */
+@Override
+public void reset() {
+
+    super.reset();
+    if (mMessages != null) {
+        mMessages.clear();
+    }
+    if (mReusableGenTypeClosingBrackets != null) {
+        mReusableGenTypeClosingBrackets.clear();
+    }
+}
 } // @members
 
 @lexer::header {
@@ -560,10 +577,15 @@ genericTypeListClosing
             mReusableGenTypeClosingBrackets.pop();
         }
     }
-    :   GREATER_THAN    -> GREATER_THAN
-    |  	SHIFT_RIGHT     -> SHIFT_RIGHT
-    |   BIT_SHIFT_RIGHT -> BIT_SHIFT_RIGHT
-    |   -> NOTHING // nothing
+    :   // A closing bracket token is always consumed by the innermost list.
+        // The outer lists see the same token again once the stream has been
+        // rewound, so the empty alternative only matches a missing bracket.
+        (   options {greedy=true;}
+        :   GREATER_THAN    -> GREATER_THAN
+        |   SHIFT_RIGHT     -> SHIFT_RIGHT
+        |   BIT_SHIFT_RIGHT -> BIT_SHIFT_RIGHT
+        |   -> NOTHING // nothing
+        )
     ;
     finally {
         if (mReusableGenTypeClosingBrackets.stackSize() > 0) {
@@ -575,7 +597,9 @@ genericTypeListClosing
     }
 
 genericTypeParameter
-    :   IDENT bound?
+    :   // EXTENDS after a type parameter starts its bound. The extends clause of
+        // the declaring class follows the closing bracket of the list.
+        IDENT (options {greedy=true;} : bound)?
         ->  ^(IDENT bound?)
     ;
 
@@ -638,9 +662,12 @@ interfaceBody
 
 classScopeDeclarations
     :   block           ->  ^(CLASS_INSTANCE_INITIALIZER block)
-    |   STATIC block    ->  ^(CLASS_STATIC_INITIALIZER[$STATIC, "CLASS_STATIC_INITIALIZER"] block)
-    |   modifierList
-        (   genericTypeParameterList?
+    |   (STATIC LCURLY)=>
+        STATIC block    ->  ^(CLASS_STATIC_INITIALIZER[$STATIC, "CLASS_STATIC_INITIALIZER"] block)
+    |   (modifierList (LESS_THAN | VOID | IDENT | primitiveType))=>
+        modifierList
+        (   (genericTypeParameterList | VOID | IDENT LPAREN | type IDENT LPAREN)=>
+            genericTypeParameterList?
             (   type ident=IDENT formalParameterList arrayDeclaratorList? throwsClause? (block | SEMI)
                 ->  ^(FUNCTION_METHOD_DECL[$ident] modifierList genericTypeParameterList? type IDENT formalParameterList arrayDeclaratorList? throwsClause? block?)
             |   VOID ident=IDENT formalParameterList throwsClause? (block | SEMI)
@@ -656,8 +683,10 @@ classScopeDeclarations
     ;
 
 interfaceScopeDeclarations
-    :   modifierList
-        (   genericTypeParameterList?
+    :   (modifierList (LESS_THAN | VOID | IDENT | primitiveType))=>
+        modifierList
+        (   (genericTypeParameterList | VOID | type IDENT LPAREN)=>
+            genericTypeParameterList?
             (   type ident1=IDENT formalParameterList arrayDeclaratorList? throwsClause? SEMI
                 ->  ^(FUNCTION_METHOD_DECL[$ident1] modifierList genericTypeParameterList? type IDENT formalParameterList arrayDeclaratorList? throwsClause? SEMI)
             |   VOID ident2=IDENT formalParameterList throwsClause? SEMI
@@ -705,7 +734,8 @@ arrayDeclarator
     ;
 
 arrayDeclaratorList
-    :   arrayDeclarator+
+    :   // All bracket pairs following a type or a declarator belong to it.
+        (options {greedy=true;} : arrayDeclarator)+
         ->  ^(ARRAY_DECLARATOR_LIST arrayDeclarator+)
     ;
 
@@ -754,12 +784,14 @@ type
     ;
 
 simpleType // including static arrays of simple type elements
-    :   primitiveType arrayDeclaratorList?
+    :   // Bracket pairs directly following the element type make it an array type.
+        primitiveType (options {greedy=true;} : arrayDeclaratorList)?
         ->  ^(TYPE primitiveType arrayDeclaratorList?)
     ;
 
 objectType // including static arrays of object type reference elements
-    :   qualifiedTypeIdent arrayDeclaratorList?
+    :   // Bracket pairs directly following the element type make it an array type.
+        qualifiedTypeIdent (options {greedy=true;} : arrayDeclaratorList)?
         ->  ^(TYPE qualifiedTypeIdent arrayDeclaratorList?)
     ;
 
@@ -769,7 +801,8 @@ objectTypeSimplified
     ;
 
 qualifiedTypeIdent
-    :   typeIdent (DOT typeIdent)*
+    :   // A dot followed by an identifier continues the qualified type name.
+        typeIdent (options {greedy=true;} : DOT typeIdent)*
 //        ->  ^(QUALIFIED_TYPE_IDENT typeIdent+)
     ;
 
@@ -805,12 +838,15 @@ genericTypeArgumentList
     ;
 
 genericTypeArgumentInnerList
-    :   genericTypeArgument (COMMA genericTypeArgument)*
+    :   // A comma continues the innermost open list. A nested list is closed by
+        // its bracket before the next argument of an outer list.
+        genericTypeArgument (options {greedy=true;} : COMMA genericTypeArgument)*
     ;
 
 genericTypeArgument
     :   type
-    |   QUESTION genericWildcardBoundType?
+    |   // EXTENDS or SUPER after a wildcard starts its bound, see genericTypeParameter.
+        QUESTION (options {greedy=true;} : genericWildcardBoundType)?
         ->  ^(WILDCARD QUESTION genericWildcardBoundType?)
     ;
 
@@ -840,7 +876,9 @@ qualifiedIdentList
 formalParameterList
     :   LPAREN
         (   // Contains at least one standard argument declaration and optionally a variable argument declaration.
-            formalParameterStandardDecl (COMMA formalParameterStandardDecl)* (COMMA formalParameterVarArgDecl)?
+            (formalParameterStandardDecl)=>
+            formalParameterStandardDecl ((COMMA formalParameterStandardDecl)=> COMMA formalParameterStandardDecl)*
+            (COMMA formalParameterVarArgDecl)?
             ->  ^(FORMAL_PARAM_LIST[$LPAREN, "FORMAL_PARAM_LIST"] formalParameterStandardDecl+ formalParameterVarArgDecl?)
             // Contains a variable argument declaration only.
         |   formalParameterVarArgDecl
@@ -864,14 +902,17 @@ formalParameterVarArgDecl
 qualifiedIdentifier
     :   (   IDENT               ->  IDENT
         )
-        (   DOT ident=IDENT     ->  ^(DOT $qualifiedIdentifier $ident)
+        // A dot followed by an identifier continues the qualified identifier.
+        (   options {greedy=true;}
+        :   DOT ident=IDENT     ->  ^(DOT $qualifiedIdentifier $ident)
         )*
     ;
 
 // ANNOTATIONS
 
 annotationList
-    :   annotation*
+    :   // All consecutive annotations belong to the same list.
+        (options {greedy=true;} : annotation)*
         ->  ^(ANNOTATION_LIST annotation*)
     ;
 
@@ -922,7 +963,8 @@ annotationBody
     ;
 
 annotationScopeDeclarations
-    :   modifierList type
+    :   (modifierList (IDENT | primitiveType))=>
+        modifierList type
         (   ident=IDENT LPAREN RPAREN annotationDefaultValue? SEMI
             ->  ^(ANNOTATION_METHOD_DECL[$ident] modifierList type IDENT annotationDefaultValue? SEMI)
         |   classFieldDeclaratorList SEMI
@@ -944,8 +986,10 @@ block
     ;
 
 blockStatement
-    :   localVariableDeclaration SEMI
-    |   typeDeclaration
+    :   (localModifierList type IDENT)=>
+        localVariableDeclaration SEMI
+    |   (modifierList (CLASS | INTERFACE | ENUM | AT INTERFACE))=>
+        typeDeclaration
     |   statement
     ;
 
@@ -961,8 +1005,9 @@ statement
     :   block
     |   assertStatement
     |   ifStatement
+    |   (FOR LPAREN localModifierList type IDENT COLON)=>
+        forEachStatement
     |   forStatement
-    |	forEachStatement
     |   whileStatement
     |   doWhileStatement
     |   tryStatement
@@ -972,7 +1017,8 @@ statement
     |   throwStatement
     |   breakStatement
     |   continueStatement
-    |   labeledStatement
+    |   (IDENT COLON)=>
+        labeledStatement
     |   expressionStatement
     ;
 
@@ -985,7 +1031,9 @@ assertStatement
 
 ifStatement
 	:	IF parenthesizedExpression ifStat=statement
-        (   ELSE elseStat=statement -> ^(IF parenthesizedExpression $ifStat ^(ELSE $elseStat))
+        // An else belongs to the innermost if statement.
+        (   options {greedy=true;}
+        :   ELSE elseStat=statement -> ^(IF parenthesizedExpression $ifStat ^(ELSE $elseStat))
         |                           -> ^(IF parenthesizedExpression $ifStat)
         )
 	;
@@ -1069,7 +1117,8 @@ switchBlockLabels
     ;
 
 switchCaseLabels
-    :   switchCaseLabel*
+    :   // Without a default label, all case labels precede it.
+        (options {greedy=true;} : switchCaseLabel)*
     ;
 
 switchCaseLabel
@@ -1081,7 +1130,8 @@ switchDefaultLabel
     ;
 
 forInit
-    :   localVariableDeclaration    ->  ^(FOR_INIT localVariableDeclaration)
+    :   (localModifierList type IDENT)=>
+        localVariableDeclaration    ->  ^(FOR_INIT localVariableDeclaration)
     |   expressionList              ->  ^(FOR_INIT expressionList)
     |                               ->  ^(FOR_INIT)
     ;
@@ -1219,11 +1269,19 @@ unaryExpressionAll
 unaryExpressionRest
     :   NOT unaryExpressionAll                          ->  ^(NOT unaryExpressionAll)
     |   LOGICAL_NOT unaryExpressionAll                  ->  ^(LOGICAL_NOT unaryExpressionAll)
-    |   LPAREN simpleType RPAREN unaryExpressionAll     ->  ^(CAST_EXPR[$LPAREN, "CAST_EXPR"] simpleType unaryExpressionAll)
-    |   LPAREN objectType RPAREN unaryExpressionRest    ->  ^(CAST_EXPR[$LPAREN, "CAST_EXPR"] objectType unaryExpressionRest)
+    |   (LPAREN simpleType RPAREN)=>
+        LPAREN simpleType RPAREN unaryExpressionAll     ->  ^(CAST_EXPR[$LPAREN, "CAST_EXPR"] simpleType unaryExpressionAll)
+    |   (LPAREN objectType RPAREN castOperandStart)=>
+        LPAREN objectType RPAREN unaryExpressionRest    ->  ^(CAST_EXPR[$LPAREN, "CAST_EXPR"] objectType unaryExpressionRest)
     |   postfixedExpression
     ;
 
+castOperandStart
+        // Tokens which may start the operand of a cast to an object type. A less-than sign is left out on purpose, it
+        // compares a parenthesized expression rather than starting a generic method call.
+    :   NOT | LOGICAL_NOT | LPAREN | literal | NEW | IDENT | THIS | SUPER | VOID | primitiveType
+    ;
+
 postfixedExpression
         // At first resolve the primary expression ...
     :   (   primaryExpression                       ->  primaryExpression
@@ -1232,13 +1290,15 @@ postfixedExpression
         (   outerDot=DOT
         			// Note: generic type arguments are only valid for method
         			// calls, i.e. if there is an argument list.
-            (   (   genericTypeArgumentListSimplified?
+            (   (genericTypeArgumentListSimplified? IDENT)=>
+                (   genericTypeArgumentListSimplified?
                     IDENT                           ->  ^(DOT $postfixedExpression IDENT)
                 )
                 (   arguments                       ->  ^(METHOD_CALL $postfixedExpression genericTypeArgumentListSimplified? arguments)
                 )?
             |   THIS                                ->  ^(DOT $postfixedExpression THIS)
-            |   genericTypeArgumentListSimplified?
+            |   (genericTypeArgumentListSimplified? SUPER LPAREN)=>
+                genericTypeArgumentListSimplified?
             	Super=SUPER arguments               ->  ^(SUPER_CONSTRUCTOR_CALL[$Super, "SUPER_CONSTRUCTOR_CALL"] $postfixedExpression genericTypeArgumentListSimplified? arguments)
             |   (   SUPER innerDot=DOT IDENT        ->  ^($innerDot ^($outerDot $postfixedExpression SUPER) IDENT)
                 )
@@ -1290,12 +1350,14 @@ qualifiedIdentExpression
     :   (   qualifiedIdentifier                             ->  qualifiedIdentifier
         )
         // And now comes the stuff that may follow the qualified identifier.
-        (   (   arrayDeclarator                         ->  ^(arrayDeclarator $qualifiedIdentExpression)
+        (   (LBRACK RBRACK)=>
+            (   arrayDeclarator                         ->  ^(arrayDeclarator $qualifiedIdentExpression)
             )+
             (   DOT CLASS                               ->  ^(DOT $qualifiedIdentExpression CLASS)
             )
         |   arguments                                   ->  ^(METHOD_CALL qualifiedIdentifier arguments)
-        |   outerDot=DOT
+        |   (DOT (CLASS | genericTypeArgumentListSimplified (SUPER | IDENT) | THIS | SUPER LPAREN | NEW))=>
+            outerDot=DOT
             (   CLASS                                   ->  ^(DOT qualifiedIdentifier CLASS)
             |   genericTypeArgumentListSimplified
                 (   Super=SUPER arguments               ->  ^(SUPER_CONSTRUCTOR_CALL[$Super, "SUPER_CONSTRUCTOR_CALL"] qualifiedIdentifier genericTypeArgumentListSimplified arguments)
@@ -1316,10 +1378,12 @@ newExpression
         |   genericTypeArgumentListSimplified? qualifiedTypeIdentSimplified
             (   newArrayConstruction                // new static array of object type reference elements
                 ->  ^(STATIC_ARRAY_CREATOR[$NEW, "STATIC_ARRAY_CREATOR"] genericTypeArgumentListSimplified? qualifiedTypeIdentSimplified newArrayConstruction)
-            |   arguments classBody                 // new object type via constructor invocation with anonymous inner-class
-                ->  ^(ANONYMOUS_CLASS_CONSTRUCTOR_CALL[$NEW, "ANONYMOUS_CLASS_CONSTRUCTOR_CALL"] genericTypeArgumentListSimplified? qualifiedTypeIdentSimplified arguments classBody)
-            |   arguments                           // new object type via constructor invocation
-                ->  ^(CLASS_CONSTRUCTOR_CALL[$NEW, "CLASS_CONSTRUCTOR_CALL"] genericTypeArgumentListSimplified? qualifiedTypeIdentSimplified arguments)
+            |   arguments
+                (   classBody                       // new object type via constructor invocation with anonymous inner-class
+                    ->  ^(ANONYMOUS_CLASS_CONSTRUCTOR_CALL[$NEW, "ANONYMOUS_CLASS_CONSTRUCTOR_CALL"] genericTypeArgumentListSimplified? qualifiedTypeIdentSimplified arguments classBody)
+                |                                   // new object type via constructor invocation
+                    ->  ^(CLASS_CONSTRUCTOR_CALL[$NEW, "CLASS_CONSTRUCTOR_CALL"] genericTypeArgumentListSimplified? qualifiedTypeIdentSimplified arguments)
+                )
             )
         )
     ;
@@ -1331,7 +1395,7 @@ innerNewExpression // something like 'InnerType innerType = outer.new InnerType(
 
 newArrayConstruction
     :   arrayDeclaratorList arrayInitializer
-    |   LBRACK! expression RBRACK! (LBRACK! expression RBRACK!)* arrayDeclaratorList?
+    |   LBRACK! expression RBRACK! ((LBRACK expression RBRACK)=> LBRACK! expression RBRACK!)* arrayDeclaratorList?
     ;
 
 arguments
@@ -18,6 +18,7 @@
 
 package de.uniulm.iai.comma.lib.ast.javasource;
 
+import org.antlr.runtime.Lexer;
 import org.antlr.runtime.Token;
 import org.antlr.runtime.TokenSource;
 
@@ -32,6 +33,7 @@ public class CollectorTokenSource implements TokenSource {
     private final TokenSource source;
     private final Set<Integer> collectTokenTypes = new HashSet<>();
     private final List<Token> collectedTokens = new ArrayList<>();
+    private int[] endLines = new int[16];
 
     public CollectorTokenSource(TokenSource source, Collection<Integer> collectTokenTypes) {
         super();
@@ -46,6 +48,10 @@ public class CollectorTokenSource implements TokenSource {
     public Token nextToken() {
         Token nextToken = source.nextToken();
         if (shouldCollect(nextToken)) {
+            if (collectedTokens.size() == endLines.length) {
+                endLines = Arrays.copyOf(endLines, endLines.length * 2);
+            }
+            endLines[collectedTokens.size()] = endLine(nextToken);
             collectedTokens.add(nextToken);
         }
         return nextToken;
@@ -63,6 +69,28 @@ public class CollectorTokenSource implements TokenSource {
         return collectedTokens;
     }
 
+    /**
+     * Returns the line the collected token at the given position ends on. Tokens do not tell their last line, so it
+     * is taken from the lexer right after the token has been matched. Tokens of other sources end on their first line.
+     */
+    public int getEndLine(int index) {
+        if (index >= collectedTokens.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + collectedTokens.size());
+        }
+        return endLines[index];
+    }
+
+    private int endLine(Token token) {
+        return source instanceof Lexer ? ((Lexer) source).getCharStream().getLine() : token.getLine();
+    }
+
+    /**
+     * Forget all collected tokens, e.g. before the wrapped source reads another input.
+     */
+    public void reset() {
+        collectedTokens.clear();
+    }
+
 
     @Override
     public String getSourceName() {
@@ -21,13 +21,21 @@ import org.antlr.runtime.Token;
 import org.antlr.runtime.tree.CommonTree;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Collection;
 
+/**
+ * A tree node with the comments preceding and following its token.
+ * <p>
+ * Most nodes have no comments, so the comment lists are only created once
+ * comments are added to a node.
+ * </p>
+ */
 public class EnhancedCommonTree extends CommonTree {
 
-    private List<Token> preceding = new ArrayList<Token>();
-    private List<Token> following = new ArrayList<Token>();
+    private List<Token> preceding;
+    private List<Token> following;
     private int lastLine = -1;
 
     public EnhancedCommonTree(Token t) {
@@ -68,18 +76,25 @@ public class EnhancedCommonTree extends CommonTree {
     }
 
     public void addPreceding(Collection<Token> tokens) {
-        this.preceding.addAll(tokens);
+        this.preceding = append(this.preceding, tokens);
     }
 
     public List<Token> getPrecedingComments() {
-        return this.preceding;
+        return this.preceding != null ? this.preceding : Collections.<Token>emptyList();
     }
 
     public void addFollowing(Collection<Token> tokens) {
-        this.following.addAll(tokens);
+        this.following = append(this.following, tokens);
     }
 
     public List<Token> getFollowingComments() {
-        return this.following;
+        return this.following != null ? this.following : Collections.<Token>emptyList();
+    }
+
+    private static List<Token> append(List<Token> comments, Collection<Token> tokens) {
+        if (tokens.isEmpty()) return comments;
+        if (comments == null) return new ArrayList<Token>(tokens);
+        comments.addAll(tokens);
+        return comments;
     }
 }
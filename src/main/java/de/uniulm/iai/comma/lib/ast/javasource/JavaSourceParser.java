@@ -0,0 +1,318 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.lib.ast.javasource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.runtime.CharStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+
+/**
+ * Lexer, comment collector and parser for java sources, which are reused for
+ * all sources parsed by the same thread.
+ * <p>
+ * Lexer and parser create their DFA tables when they are constructed, so
+ * creating them for each source costs more than resetting them. An instance
+ * must not be shared between threads and parses one source at a time: the
+ * results of {@link #parse(CharStream)} are valid until {@link #release()} is
+ * called, which drops all references to the parsed source.
+ * </p>
+ * <p>
+ * Parsing may be limited in time. If a source exceeds its budget, its
+ * declarations can still be parsed without the bodies of functions and
+ * initializers, see {@link #parseSkeleton()}.
+ * </p>
+ */
+public final class JavaSourceParser {
+
+    private static final ThreadLocal<JavaSourceParser> INSTANCES = new ThreadLocal<JavaSourceParser>() {
+        @Override
+        protected JavaSourceParser initialValue() {
+            return new JavaSourceParser();
+        }
+    };
+
+    private final JavaLexer lexer;
+
+    private final CollectorTokenSource tokenSource;
+
+    private final BudgetedTokenStream tokens;
+
+    private final JavaParser parser;
+
+    /**
+     * Constructor, creates a parser independent of the instance of the
+     * current thread.
+     */
+    public JavaSourceParser() {
+        lexer = new JavaLexer();
+        tokenSource = new CollectorTokenSource(lexer, Arrays.asList(JavaLexer.BLOCK_COMMENT, JavaLexer.LINE_COMMENT,
+                JavaLexer.JAVADOC_COMMENT));
+        tokens = new BudgetedTokenStream(tokenSource);
+        parser = new JavaParser(tokens);
+        parser.enableErrorMessageCollection(true);
+        parser.setTreeAdaptor(new EnhancedCommonTreeAdapter());
+    }
+
+    /**
+     * Return the parser of the current thread.
+     *
+     * @return The parser.
+     */
+    public static JavaSourceParser get() {
+        return INSTANCES.get();
+    }
+
+    /**
+     * Parse a java source, all comments are collected.
+     *
+     * @param input
+     *            The source.
+     * @return The tree of the source.
+     * @throws RecognitionException
+     *             If the source cannot be parsed.
+     */
+    public EnhancedCommonTree parse(CharStream input) throws RecognitionException {
+        return parse(input, true);
+    }
+
+    /**
+     * Parse a java source. If comments are not preserved, the lexer skips
+     * them, so they are neither collected nor part of the token stream.
+     *
+     * @param input
+     *            The source.
+     * @param preserveComments
+     *            <code>true</code> if comments should be collected.
+     * @return The tree of the source.
+     * @throws RecognitionException
+     *             If the source cannot be parsed.
+     */
+    public EnhancedCommonTree parse(CharStream input, boolean preserveComments) throws RecognitionException {
+        tokenize(input, preserveComments);
+        return parse();
+    }
+
+    /**
+     * Lex a java source completely, the tokens are parsed by {@link #parse()}.
+     * Lexing all tokens first does not change the result, the token stream
+     * buffers all tokens anyway, but allows to tell lexing and parsing time
+     * apart.
+     *
+     * @param input
+     *            The source.
+     * @param preserveComments
+     *            <code>true</code> if comments should be collected.
+     */
+    public void tokenize(CharStream input, boolean preserveComments) {
+        release();
+        lexer.mPreserveBlockComments = preserveComments;
+        lexer.mPreserveJavaDocComments = preserveComments;
+        lexer.mPreserveLineComments = preserveComments;
+        lexer.setCharStream(input);
+        tokens.fill();
+    }
+
+    /**
+     * Parse the source lexed by {@link #tokenize(CharStream, boolean)}.
+     *
+     * @return The tree of the source.
+     * @throws RecognitionException
+     *             If the source cannot be parsed.
+     */
+    public EnhancedCommonTree parse() throws RecognitionException {
+        return (EnhancedCommonTree) parser.javaSource().getTree();
+    }
+
+    /**
+     * Parse the source lexed by {@link #tokenize(CharStream, boolean)} within
+     * the given time.
+     *
+     * @param timeout
+     *            The maximum time, not limited if not positive.
+     * @param unit
+     *            The unit of the timeout.
+     * @return The tree of the source.
+     * @throws RecognitionException
+     *             If the source cannot be parsed.
+     * @throws ParseBudgetExceededException
+     *             If parsing takes longer than the given time.
+     */
+    public EnhancedCommonTree parse(long timeout, TimeUnit unit) throws RecognitionException {
+        if (timeout <= 0) {
+            return parse();
+        }
+        tokens.limit(unit.toNanos(timeout));
+        try {
+            return parse();
+        } finally {
+            tokens.unlimit();
+        }
+    }
+
+    /**
+     * Parse the declarations of the source lexed by
+     * {@link #tokenize(CharStream, boolean)}, without the bodies of
+     * constructors, methods and initializers. Local and anonymous classes
+     * declared in these bodies are not part of the tree, neither are comments.
+     * The declarations keep their lines. Parsing the skeleton is not limited
+     * in time.
+     *
+     * @return The tree of the declarations.
+     * @throws RecognitionException
+     *             If the declarations cannot be parsed.
+     */
+    public EnhancedCommonTree parseSkeleton() throws RecognitionException {
+        List<Token> skeleton = SourceSkeleton.of(tokens.getTokens());
+        // Resetting the parser rewinds the token stream, which is replaced afterwards
+        parser.reset();
+        tokens.setTokenSource(new SourceSkeleton.ListTokenSource(skeleton));
+        tokenSource.reset();
+        return parse();
+    }
+
+    /**
+     * Return the number of tokens of the parsed source.
+     *
+     * @return The number of tokens.
+     */
+    public int getTokenCount() {
+        return tokens.size();
+    }
+
+    /**
+     * Return the tokens of the source lexed by
+     * {@link #tokenize(CharStream, boolean)}, including the end of file.
+     * Comments are part of the tokens only if they are preserved, but never
+     * on the default channel.
+     *
+     * @return The tokens, valid until {@link #release()} is called.
+     */
+    public List<? extends Token> getTokens() {
+        return tokens.getTokens();
+    }
+
+    /**
+     * Return the comments of the parsed source, ordered by their token index.
+     *
+     * @return The comment tokens.
+     */
+    public List<Token> getCollectedTokens() {
+        return tokenSource.getCollectedTokens();
+    }
+
+    /**
+     * Return the line the comment at the given position of
+     * {@link #getCollectedTokens()} ends on.
+     *
+     * @param index
+     *            The position of the comment.
+     * @return The last line of the comment.
+     */
+    public int getCollectedEndLine(int index) {
+        return tokenSource.getEndLine(index);
+    }
+
+    /**
+     * Tells if there were errors parsing the source.
+     *
+     * @return <code>true</code> if there is at least one error message.
+     */
+    public boolean hasErrors() {
+        return parser.hasErrors();
+    }
+
+    /**
+     * Returns the error messages of the parsed source.
+     *
+     * @return The error messages.
+     */
+    public List<String> getMessages() {
+        return parser.getMessages();
+    }
+
+    /**
+     * Drop all references to the parsed source.
+     */
+    public void release() {
+        lexer.setCharStream(null);
+        // Resetting the parser rewinds the token stream, which is cleared afterwards
+        parser.reset();
+        tokens.setTokenSource(tokenSource);
+        tokenSource.reset();
+    }
+
+    /**
+     * Token stream checking the time spent parsing every few consumed tokens
+     * and rewinds, i.e. speculative parses of syntactic predicates.
+     */
+    private static final class BudgetedTokenStream extends CommonTokenStream {
+        private static final int CHECK_INTERVAL = 1024;
+
+        private boolean limited;
+        private long start;
+        private long budget;
+        private int countdown;
+
+        private BudgetedTokenStream(TokenSource tokenSource) {
+            super(tokenSource);
+        }
+
+        private void limit(long nanos) {
+            limited = true;
+            start = System.nanoTime();
+            budget = nanos;
+            countdown = CHECK_INTERVAL;
+        }
+
+        private void unlimit() {
+            limited = false;
+        }
+
+        @Override
+        public void consume() {
+            super.consume();
+            if (limited && --countdown == 0) {
+                check();
+            }
+        }
+
+        @Override
+        public void rewind(int marker) {
+            super.rewind(marker);
+            if (limited && --countdown == 0) {
+                check();
+            }
+        }
+
+        private void check() {
+            countdown = CHECK_INTERVAL;
+            long elapsed = System.nanoTime() - start;
+            if (elapsed > budget) {
+                limited = false;
+                throw new ParseBudgetExceededException("Parsing " + size() + " tokens exceeded "
+                        + TimeUnit.NANOSECONDS.toMillis(budget) + " ms");
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.lib.ast.javasource;
+
+/**
+ * Thrown by {@link JavaSourceParser} if parsing a source takes longer than
+ * allowed. The parser is left in an undefined state, the source can only be
+ * parsed again, e.g. by {@link JavaSourceParser#parseSkeleton()}.
+ */
+public class ParseBudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     *
+     * @param message
+     *            Describes the exceeded budget.
+     */
+    public ParseBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.lib.ast.javasource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.antlr.runtime.Token;
+import org.antlr.runtime.TokenSource;
+
+/**
+ * Reduces the tokens of a java source to the declarations of its types and
+ * members.
+ * <p>
+ * The bodies of constructors, methods and initializers are replaced by an
+ * empty block, their braces are kept so all declarations keep their lines.
+ * Braces of field initializers, annotation values and enum constant arguments
+ * are kept with their content. Bodies of types, including enum constant
+ * bodies, are reduced as well. Types declared in the skipped bodies, i.e.
+ * local and anonymous classes, are lost.
+ * </p>
+ */
+final class SourceSkeleton {
+
+    /** Parse state of the members of a type body or of the compilation unit. */
+    private static final class Members {
+        private final boolean enumBody;
+        private boolean enumConstants;
+        private int parenDepth;
+        private boolean initializer;
+        private boolean typeDeclaration;
+        private boolean enumDeclaration;
+
+        private Members(boolean enumBody) {
+            this.enumBody = enumBody;
+            this.enumConstants = enumBody;
+        }
+
+        private void endMember() {
+            parenDepth = 0;
+            initializer = false;
+            typeDeclaration = false;
+            enumDeclaration = false;
+        }
+    }
+
+    private final List<Token> tokens;
+
+    private final List<Token> skeleton = new ArrayList<>();
+
+    private int next;
+
+    private SourceSkeleton(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Reduce the given tokens. Tokens off the default channel are dropped.
+     *
+     * @param tokens
+     *            All tokens of a source, ending with the EOF token.
+     * @return The tokens of the declarations, ending with the EOF token.
+     */
+    static List<Token> of(List<? extends Token> tokens) {
+        List<Token> onChannel = new ArrayList<>(tokens.size());
+        for (Token token : tokens) {
+            if (token.getChannel() == Token.DEFAULT_CHANNEL) {
+                onChannel.add(token);
+            }
+        }
+        return new SourceSkeleton(onChannel).reduce();
+    }
+
+    private List<Token> reduce() {
+        Deque<Members> bodies = new ArrayDeque<>();
+        Members members = new Members(false);
+        while (next < tokens.size() && tokens.get(next).getType() != Token.EOF) {
+            Token token = tokens.get(next++);
+            switch (token.getType()) {
+            case JavaParser.LPAREN:
+                members.parenDepth++;
+                skeleton.add(token);
+                break;
+            case JavaParser.RPAREN:
+                members.parenDepth--;
+                skeleton.add(token);
+                break;
+            case JavaParser.ASSIGN:
+            case JavaParser.DEFAULT:
+                if (members.parenDepth == 0) {
+                    members.initializer = true;
+                }
+                skeleton.add(token);
+                break;
+            case JavaParser.CLASS:
+            case JavaParser.INTERFACE:
+            case JavaParser.ENUM:
+                if (members.parenDepth == 0 && !members.initializer && !follows(JavaParser.DOT)) {
+                    members.typeDeclaration = true;
+                    members.enumDeclaration = token.getType() == JavaParser.ENUM;
+                }
+                skeleton.add(token);
+                break;
+            case JavaParser.SEMI:
+                if (members.parenDepth == 0) {
+                    members.endMember();
+                    members.enumConstants = false;
+                }
+                skeleton.add(token);
+                break;
+            case JavaParser.LCURLY:
+                skeleton.add(token);
+                if (members.parenDepth > 0 || members.initializer) {
+                    copyBlock();
+                } else if (members.typeDeclaration || members.enumConstants) {
+                    bodies.push(members);
+                    members = new Members(members.typeDeclaration && members.enumDeclaration);
+                } else {
+                    skipBlock();
+                    members.endMember();
+                }
+                break;
+            case JavaParser.RCURLY:
+                skeleton.add(token);
+                if (!bodies.isEmpty()) {
+                    members = bodies.pop();
+                    members.endMember();
+                }
+                break;
+            default:
+                skeleton.add(token);
+            }
+        }
+        skeleton.add(tokens.get(tokens.size() - 1));
+        return skeleton;
+    }
+
+    private boolean follows(int type) {
+        return next >= 2 && tokens.get(next - 2).getType() == type;
+    }
+
+    /** Add all tokens up to and including the brace closing the block just opened. */
+    private void copyBlock() {
+        for (int depth = 1; depth > 0 && next < tokens.size() - 1;) {
+            Token token = tokens.get(next++);
+            depth += depthChange(token);
+            skeleton.add(token);
+        }
+    }
+
+    /** Skip all tokens of the block just opened, only the closing brace is added. */
+    private void skipBlock() {
+        for (int depth = 1; depth > 0 && next < tokens.size() - 1;) {
+            Token token = tokens.get(next++);
+            depth += depthChange(token);
+            if (depth == 0) {
+                skeleton.add(token);
+            }
+        }
+    }
+
+    private static int depthChange(Token token) {
+        switch (token.getType()) {
+        case JavaParser.LCURLY:
+            return 1;
+        case JavaParser.RCURLY:
+            return -1;
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * Token source returning the tokens of a list, the last token, which must
+     * be the EOF token, is returned repeatedly.
+     */
+    static final class ListTokenSource implements TokenSource {
+        private final List<Token> tokens;
+        private int next;
+
+        ListTokenSource(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        @Override
+        public Token nextToken() {
+            return tokens.get(next < tokens.size() - 1 ? next++ : tokens.size() - 1);
+        }
+
+        @Override
+        public String getSourceName() {
+            return "skeleton";
+        }
+    }
+}
@@ -1,19 +1,36 @@
 package de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import com.buschmais.jqassistant.core.scanner.api.ScannerContext;
-import com.buschmais.jqassistant.core.store.api.model.Descriptor;
-import de.uniulm.iai.jqassistant.javasrc.plugin.model.MemberDescriptor;
 import de.uniulm.iai.jqassistant.javasrc.plugin.model.TypeDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Abstract base implementation of a type resolver.
  */
 public abstract class AbstractTypeResolver implements TypeResolver {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTypeResolver.class);
+
     /**
      * The type cache.
      */
-    private TypeCache typeCache;
+    private final TypeCache typeCache;
+
+    private final AtomicLong lookupCount = new AtomicLong();
+
+    private final AtomicLong foundCount = new AtomicLong();
+
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    /**
+     * The names of the types contained in the store, if preloaded.
+     */
+    private volatile TypeIndex typeIndex;
 
     /**
      * Constructor.
@@ -23,48 +40,85 @@ public abstract class AbstractTypeResolver implements TypeResolver {
     }
 
     @Override
-    public <T extends TypeDescriptor> TypeCache.CachedType<T> create(String fullQualifiedName, Class<T> descriptorType, ScannerContext context) {
-        TypeCache.CachedType cachedType = typeCache.get(fullQualifiedName);
-        if (cachedType == null) {
-            T typeDescriptor;
-            TypeDescriptor resolvedType = findInArtifact(fullQualifiedName, context);
-            if (resolvedType == null) {
-                typeDescriptor = createDescriptor(fullQualifiedName, descriptorType, context);
-            } else if (!(descriptorType.isAssignableFrom(resolvedType.getClass()))) {
-                typeDescriptor = migrateDescriptor(fullQualifiedName, resolvedType, descriptorType, context);
-            } else {
-                typeDescriptor = descriptorType.cast(resolvedType);
-            }
-            cachedType = toCachedType(typeDescriptor);
-            typeCache.put(fullQualifiedName, cachedType);
-        } else {
-            T typeDescriptor;
-            TypeDescriptor resolvedType = cachedType.getTypeDescriptor();
-            if (!descriptorType.isAssignableFrom(resolvedType.getClass())) {
-                typeDescriptor = migrateDescriptor(fullQualifiedName, resolvedType, descriptorType, context);
-                cachedType.migrate(typeDescriptor);
+    public <T extends TypeDescriptor> TypeCache.CachedType<T> create(final String fullQualifiedName, final Class<T> descriptorType,
+            final ScannerContext context) {
+        TypeCache.CachedType cachedType = typeCache.get(fullQualifiedName, new Callable<TypeCache.CachedType>() {
+            @Override
+            public TypeCache.CachedType call() {
+                TypeDescriptor resolvedType = find(fullQualifiedName, context, false);
+                if (resolvedType == null) {
+                    return typeCache.created(createDescriptor(fullQualifiedName, descriptorType, context));
+                }
+                return typeCache.stored(resolvedType);
             }
+        });
+        TypeDescriptor resolvedType = cachedType.getTypeDescriptor();
+        if (!descriptorType.isAssignableFrom(resolvedType.getClass())) {
+            cachedType.migrate(migrateDescriptor(fullQualifiedName, resolvedType, descriptorType, context));
         }
         addContainedType(fullQualifiedName, cachedType.getTypeDescriptor());
         return cachedType;
     }
 
     @Override
-    public TypeCache.CachedType<TypeDescriptor> resolve(String fullQualifiedName, ScannerContext context) {
-        TypeCache.CachedType cachedType = typeCache.get(fullQualifiedName);
-        if (cachedType == null) {
-            TypeDescriptor typeDescriptor = findInArtifact(fullQualifiedName, context);
-            if (typeDescriptor == null) {
-                typeDescriptor = findInDependencies(fullQualifiedName, context);
-            }
-            if (typeDescriptor == null) {
-                typeDescriptor = createDescriptor(fullQualifiedName, TypeDescriptor.class, context);
-                addRequiredType(fullQualifiedName, typeDescriptor);
+    public TypeCache.CachedType<TypeDescriptor> resolve(final String fullQualifiedName, final ScannerContext context) {
+        return typeCache.get(fullQualifiedName, new Callable<TypeCache.CachedType>() {
+            @Override
+            public TypeCache.CachedType call() {
+                TypeDescriptor typeDescriptor = find(fullQualifiedName, context, true);
+                if (typeDescriptor == null) {
+                    typeDescriptor = createDescriptor(fullQualifiedName, TypeDescriptor.class, context);
+                    addRequiredType(fullQualifiedName, typeDescriptor);
+                    return typeCache.created(typeDescriptor);
+                }
+                return typeCache.stored(typeDescriptor);
             }
-            cachedType = toCachedType(typeDescriptor);
-            typeCache.put(fullQualifiedName, cachedType);
+        });
+    }
+
+    /**
+     * Look up a type in the store, first in the current scope, then in the
+     * dependencies if requested.
+     */
+    private TypeDescriptor find(String fullQualifiedName, ScannerContext context, boolean includeDependencies) {
+        TypeIndex index = typeIndex;
+        if (index != null && !index.mightContain(fullQualifiedName)) {
+            skippedCount.incrementAndGet();
+            return null;
         }
-        return cachedType;
+        TypeDescriptor typeDescriptor = findInArtifact(fullQualifiedName, context);
+        if (typeDescriptor == null && includeDependencies) {
+            typeDescriptor = findInDependencies(fullQualifiedName, context);
+        }
+        lookupCount.incrementAndGet();
+        if (typeDescriptor != null) {
+            foundCount.incrementAndGet();
+        }
+        return typeDescriptor;
+    }
+
+    @Override
+    public LookupStatistics getLookupStatistics() {
+        return new LookupStatistics(lookupCount.get(), foundCount.get(), skippedCount.get());
+    }
+
+    @Override
+    public void preloadTypeIndex(ScannerContext context) {
+        long start = System.nanoTime();
+        TypeIndex index = TypeIndex.load(context.getStore());
+        LOGGER.info("Preloaded {} type names in {} ms, using about {} KiB.", index.getPreloadedCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), index.estimateMemory() / 1024);
+        typeIndex = index;
+    }
+
+    @Override
+    public TypeCache getTypeCache() {
+        return typeCache;
+    }
+
+    @Override
+    public void evict(String fullQualifiedName) {
+        typeCache.remove(fullQualifiedName);
     }
 
     private <T extends TypeDescriptor> T createDescriptor(String fullQualifiedName, Class<T> descriptorType, ScannerContext scannerContext) {
@@ -78,6 +132,10 @@ public abstract class AbstractTypeResolver implements TypeResolver {
         }
         typeDescriptor.setName(name);
         typeDescriptor.setFullQualifiedName(fullQualifiedName);
+        TypeIndex index = typeIndex;
+        if (index != null) {
+            index.add(fullQualifiedName);
+        }
         return typeDescriptor;
     }
 
@@ -87,28 +145,6 @@ public abstract class AbstractTypeResolver implements TypeResolver {
         return typeDescriptor;
     }
 
-    /**
-     * Wraps a descriptor in a cached type containing members and dependencies.
-     *
-     * @param typeDescriptor
-     *            The type descriptor.
-     * @return The cached type.
-     */
-    private TypeCache.CachedType toCachedType(TypeDescriptor typeDescriptor) {
-        TypeCache.CachedType cachedType;
-        cachedType = new TypeCache.CachedType(typeDescriptor);
-        for (Descriptor descriptor : typeDescriptor.getDeclaredMembers()) {
-            if (descriptor instanceof MemberDescriptor) {
-                MemberDescriptor memberDescriptor = (MemberDescriptor) descriptor;
-                cachedType.addMember(memberDescriptor.getSignature(), memberDescriptor);
-            }
-        }
-        for (TypeDescriptor descriptor : typeDescriptor.getDependencies()) {
-            cachedType.addDependency(descriptor.getFullQualifiedName(), typeDescriptor);
-        }
-        return cachedType;
-    }
-
     /**
      * Find a type descriptor in the current scope (e.g. the containing
      * artifact).
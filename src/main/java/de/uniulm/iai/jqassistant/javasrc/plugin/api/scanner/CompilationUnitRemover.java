@@ -0,0 +1,133 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.buschmais.jqassistant.core.scanner.api.ScannerContext;
+import com.buschmais.jqassistant.core.store.api.Store;
+import com.buschmais.xo.api.Query;
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.JavaCompilationUnitDescriptor;
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.TypeDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Removes the subgraph of previously scanned compilation units from the store.
+ * <p>
+ * Members declared by a compilation unit are deleted. Its types are kept if
+ * they are still referenced from other parts of the graph, so relations of
+ * unchanged compilation units stay intact. A kept type loses its declaration,
+ * dependencies, labels and properties, it becomes a required type like one
+ * created for a type never declared in the scanned sources. Types required by
+ * the compilation unit only are deleted.
+ * </p>
+ */
+public final class CompilationUnitRemover {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompilationUnitRemover.class);
+
+    private CompilationUnitRemover() {
+    }
+
+    /**
+     * Remove everything declared or required by a compilation unit, the
+     * compilation unit itself is kept to be scanned again.
+     *
+     * @param compilationUnit
+     *            The compilation unit.
+     * @param context
+     *            The scanner context.
+     */
+    public static void clear(JavaCompilationUnitDescriptor compilationUnit, ScannerContext context) {
+        clear((Object) compilationUnit, context);
+    }
+
+    /**
+     * Remove all compilation units whose source file has been deleted from the
+     * file system, together with their subgraphs. This must happen before any
+     * source is scanned, a renamed source may declare the types of a deleted
+     * one.
+     *
+     * @param context
+     *            The scanner context.
+     */
+    public static void removeDeleted(ScannerContext context) {
+        Store store = context.getStore();
+        List<Long> deleted = new ArrayList<>();
+        for (Query.Result.CompositeRowObject row : query(store,
+                "match (cu:JavaCompilationUnit) where has(cu.location) return id(cu) as id, cu.location as location",
+                Collections.<String, Object> emptyMap())) {
+            if (!new File(row.get("location", String.class)).exists()) {
+                deleted.add(row.get("id", Long.class));
+            }
+        }
+        for (Long id : deleted) {
+            clear(id, context);
+            query(store, "match (cu:JavaCompilationUnit) where id(cu)={id} optional match (cu)-[r]-() delete r, cu",
+                    Collections.<String, Object> singletonMap("id", id));
+        }
+        if (!deleted.isEmpty()) {
+            LOGGER.info("Removed {} compilation units of deleted source files.", deleted.size());
+        }
+    }
+
+    /**
+     * Remove the subgraph of a compilation unit, given either as descriptor or
+     * as node id. Both are passed to the store as id.
+     */
+    private static void clear(Object compilationUnit, ScannerContext context) {
+        Store store = context.getStore();
+        TypeResolver typeResolver = context.peek(TypeResolver.class);
+        List<Long> types = new ArrayList<>();
+        for (Query.Result.CompositeRowObject row : query(store,
+                "match (cu:JavaCompilationUnit)-[:DECLARES*]->(type:Type) where id(cu)={id} return distinct id(type) as id, type.fqn as fqn",
+                Collections.<String, Object> singletonMap("id", compilationUnit))) {
+            types.add(row.get("id", Long.class));
+            typeResolver.evict(row.get("fqn", String.class));
+        }
+        // Types required by the compilation unit may not be required by any other one
+        List<Long> requiredTypes = new ArrayList<>();
+        for (Query.Result.CompositeRowObject row : query(store,
+                "match (cu:JavaCompilationUnit)-[:DECLARES|HAS*0..]->()-->(type:Type) where id(cu)={id} return distinct id(type) as id",
+                Collections.<String, Object> singletonMap("id", compilationUnit))) {
+            requiredTypes.add(row.get("id", Long.class));
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("id", compilationUnit);
+        parameters.put("types", types);
+        parameters.put("requiredTypes", requiredTypes);
+        query(store, "match (type:Type)-[:DECLARES]->(member)-[:HAS*0..]->(node) where id(type) in {types} and not member:Type "
+                + "optional match (node)-[r]-() delete r, node", parameters);
+        query(store, "match (type:Type)-[r:DECLARES|DEPENDS_ON|EXTENDS|IMPLEMENTS]->() where id(type) in {types} delete r",
+                parameters);
+        query(store, "match (cu:JavaCompilationUnit)-[r:DECLARES|REQUIRES|IS_MAIN_TYPE]->() where id(cu)={id} delete r",
+                parameters);
+        for (Query.Result.CompositeRowObject row : query(store, "match (type:Type) where id(type) in {types} and (type)--() "
+                + "set type = {fqn: type.fqn, name: last(split(type.fqn, '.'))} return type", parameters)) {
+            // Migrating through the store removes the declaration labels and keeps the cached instance consistent
+            store.migrate(row.get("type", TypeDescriptor.class), TypeDescriptor.class);
+        }
+        query(store, "match (type:Type) where id(type) in {types} and not (type)--() delete type", parameters);
+        for (Query.Result.CompositeRowObject row : query(store, "match (type:Type) where id(type) in {requiredTypes} "
+                + "and not (type)--() with type, type.fqn as fqn delete type return fqn", parameters)) {
+            typeResolver.evict(row.get("fqn", String.class));
+        }
+    }
+
+    private static List<Query.Result.CompositeRowObject> query(Store store, String query, Map<String, Object> parameters) {
+        List<Query.Result.CompositeRowObject> rows = new ArrayList<>();
+        try (Query.Result<Query.Result.CompositeRowObject> result = store.executeQuery(query, parameters)) {
+            for (Query.Result.CompositeRowObject row : result) {
+                rows.add(row);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot execute query " + query, e);
+        }
+        return rows;
+    }
+}
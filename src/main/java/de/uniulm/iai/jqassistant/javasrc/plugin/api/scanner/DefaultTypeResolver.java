@@ -14,9 +14,13 @@ class DefaultTypeResolver extends AbstractTypeResolver {
         return context.getStore().find(TypeDescriptor.class, fullQualifiedName);
     }
 
+    /**
+     * There is no separate scope, {@link #findInArtifact} already searched
+     * the whole store. Hence, unknown types are looked up only once.
+     */
     @Override
     protected TypeDescriptor findInDependencies(String fullQualifiedName, ScannerContext context) {
-        return context.getStore().find(TypeDescriptor.class, fullQualifiedName);
+        return null;
     }
 
     @Override
@@ -2,6 +2,8 @@ package de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner;
 
 import com.buschmais.jqassistant.core.scanner.api.ScannerContext;
 import com.buschmais.jqassistant.core.scanner.api.Scope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Defines the scopes for java sources.
@@ -11,15 +13,33 @@ public enum JavaSourceScope implements Scope {
     CLASSPATH {
         @Override
         public void create(ScannerContext context) {
-            context.push(TypeResolver.class, TypeResolverBuilder.createTypeResolver(context));
+            TypeResolver typeResolver = TypeResolverBuilder.createTypeResolver(context);
+            context.push(TypeResolver.class, typeResolver);
+            CompilationUnitRemover.removeDeleted(context);
+            context.push(ScanStatistics.class, new ScanStatistics(typeResolver));
+            context.push(PendingWriteQueue.class, new PendingWriteQueue());
         }
 
         @Override
         public void destroy(ScannerContext context) {
-            context.pop(TypeResolver.class);
+            PendingWriteQueue pendingWrites = context.pop(PendingWriteQueue.class);
+            try {
+                pendingWrites.flush();
+            } finally {
+                pendingWrites.close();
+            }
+            TypeResolver typeResolver = context.pop(TypeResolver.class);
+            TypeCache typeCache = typeResolver.getTypeCache();
+            LOGGER.info("Type cache statistics: {}", typeCache.getStatistics());
+            LOGGER.info("Type cache read the members of {} and the dependencies of {} of {} stored types.",
+                    typeCache.getMemberLoadCount(), typeCache.getDependencyLoadCount(), typeCache.getStoredTypeCount());
+            LOGGER.info("Type lookup statistics: {}", typeResolver.getLookupStatistics());
+            context.pop(ScanStatistics.class).close();
         }
     };
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(JavaSourceScope.class);
+
     @Override
     public String getPrefix() {
         return "javasrc";
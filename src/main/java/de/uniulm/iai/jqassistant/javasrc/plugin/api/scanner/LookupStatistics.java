@@ -0,0 +1,75 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner;
+
+/**
+ * Counts of the store lookups of a type resolver, i.e. of all resolutions
+ * which could not be answered by the type cache. Lookups of types known to be
+ * missing by the {@link TypeIndex} are skipped.
+ */
+public final class LookupStatistics {
+
+    private final long lookupCount;
+
+    private final long foundCount;
+
+    private final long skippedCount;
+
+    /**
+     * Constructor.
+     *
+     * @param lookupCount
+     *            The number of types looked up in the store.
+     * @param foundCount
+     *            The number of types found in the store.
+     * @param skippedCount
+     *            The number of lookups skipped because of the type index.
+     */
+    public LookupStatistics(long lookupCount, long foundCount, long skippedCount) {
+        this.lookupCount = lookupCount;
+        this.foundCount = foundCount;
+        this.skippedCount = skippedCount;
+    }
+
+    /**
+     * Return the number of types looked up in the store.
+     *
+     * @return The lookup count.
+     */
+    public long getLookupCount() {
+        return lookupCount;
+    }
+
+    /**
+     * Return the number of types found in the store.
+     *
+     * @return The found count.
+     */
+    public long getFoundCount() {
+        return foundCount;
+    }
+
+    /**
+     * Return the number of lookups skipped because the type index has shown
+     * that the type is not contained in the store.
+     *
+     * @return The skipped count.
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Return the number of types which have not been found and have been
+     * created.
+     *
+     * @return The created count.
+     */
+    public long getCreatedCount() {
+        return lookupCount - foundCount + skippedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "LookupStatistics{lookupCount=" + lookupCount + ", foundCount=" + foundCount + ", skippedCount="
+                + skippedCount + ", createdCount=" + getCreatedCount() + "}";
+    }
+}
@@ -0,0 +1,137 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queue of analysis results waiting to be written to the store.
+ * <p>
+ * Source files may be analyzed concurrently, but the store is only accessed by
+ * the scanner thread. Each analysis produces a write operation which is
+ * executed in the order the files have been added, hence the resulting graph
+ * does not depend on the number of analysis workers.
+ * </p>
+ * <p>
+ * A failing analysis or write is logged and does not affect the following
+ * ones, no matter if the item has been analyzed by a worker or by the scanner
+ * thread. The workers are created on demand and stopped once the queue is
+ * closed, i.e. they live as long as the scope the queue belongs to.
+ * </p>
+ */
+public class PendingWriteQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PendingWriteQueue.class);
+
+    private final Deque<PendingWrite> pending = new ArrayDeque<>();
+
+    private ExecutorService executor;
+
+    /**
+     * Return the executor analyzing the items of this queue, it is created
+     * with the given number of threads when requested first.
+     *
+     * @param threads
+     *            The number of threads.
+     * @return The executor.
+     */
+    public ExecutorService getExecutor(int threads) {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "javasrc-analysis-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Add the write operation of an analysis.
+     *
+     * @param path
+     *            The path of the analyzed item.
+     * @param write
+     *            The analysis, returning the write operation once complete.
+     */
+    public void add(String path, Future<? extends Runnable> write) {
+        pending.add(new PendingWrite(path, write));
+    }
+
+    /**
+     * Return the number of write operations not yet executed.
+     *
+     * @return The number of pending writes.
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Execute all write operations of completed analyses in order. Waits for
+     * further analyses until no more than the given number of writes is
+     * pending.
+     *
+     * @param maxPending
+     *            The maximum number of pending writes after returning.
+     */
+    public void flush(int maxPending) {
+        while (!pending.isEmpty() && (pending.size() > maxPending || pending.peek().write.isDone())) {
+            execute(pending.poll());
+        }
+    }
+
+    /**
+     * Wait for all analyses and execute their write operations.
+     */
+    public void flush() {
+        flush(0);
+    }
+
+    /**
+     * Stop the executor, its threads terminate once their running analyses
+     * are complete. Pending writes should be flushed before.
+     */
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void execute(PendingWrite pendingWrite) {
+        try {
+            pendingWrite.write.get().run();
+        } catch (ExecutionException e) {
+            LOGGER.error("Cannot scan item " + pendingWrite.path, e.getCause());
+        } catch (RuntimeException e) {
+            LOGGER.error("Cannot scan item " + pendingWrite.path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for analysis of " + pendingWrite.path, e);
+        }
+    }
+
+    private static class PendingWrite {
+        private final String path;
+        private final Future<? extends Runnable> write;
+
+        private PendingWrite(String path, Future<? extends Runnable> write) {
+            this.path = path;
+            this.write = write;
+        }
+    }
+}
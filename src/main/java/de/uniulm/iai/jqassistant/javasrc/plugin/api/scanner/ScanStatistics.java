@@ -0,0 +1,313 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Times and counts of a scan of java sources.
+ * <p>
+ * The statistics are disabled unless {@link #enable()} is called, callers check
+ * {@link #isEnabled()} before taking any time, so a disabled instance costs a
+ * volatile read per file. Once enabled, the statistics are registered as MBean
+ * and a summary is logged when the scope is destroyed, see {@link #close()}.
+ * The statistics are safe to be updated by several threads. The time of each
+ * stage is summed up over all threads, so with several analysis workers the
+ * stages may take longer in total than the scan itself.
+ * </p>
+ */
+public class ScanStatistics implements ScanStatisticsMBean {
+
+    /**
+     * Name of the MBean of the running scan.
+     */
+    public static final String OBJECT_NAME = "de.uniulm.iai.jqassistant.javasrc:type=ScanStatistics";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanStatistics.class);
+
+    /**
+     * The stages of scanning a source file.
+     */
+    public enum Stage {
+        READ, DECODE, LEX, PARSE, COMMENTS, WALK, EVALUATION, WRITE
+    }
+
+    private final TypeResolver typeResolver;
+
+    private final AtomicLongArray stageTimes = new AtomicLongArray(Stage.values().length);
+
+    private final AtomicLong scannedFileCount = new AtomicLong();
+
+    private final AtomicLong analyzedFileCount = new AtomicLong();
+
+    private final AtomicLong analyzedByteCount = new AtomicLong();
+
+    private final AtomicLong degradedFileCount = new AtomicLong();
+
+    private final AtomicLong typeReferenceCount = new AtomicLong();
+
+    private final AtomicLong newDependencyCount = new AtomicLong();
+
+    private volatile boolean enabled;
+
+    private volatile long startTime;
+
+    private ObjectName objectName;
+
+    /**
+     * Constructor.
+     *
+     * @param typeResolver
+     *            The type resolver of the scan, whose cache and lookup
+     *            statistics are reported.
+     */
+    ScanStatistics(TypeResolver typeResolver) {
+        this.typeResolver = typeResolver;
+    }
+
+    /**
+     * Start recording and register the MBean, unless already enabled.
+     */
+    public synchronized void enable() {
+        if (enabled) {
+            return;
+        }
+        startTime = System.nanoTime();
+        enabled = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+                objectName = name;
+            } else {
+                LOGGER.warn("Scan statistics are not registered, {} is registered by another scan.", OBJECT_NAME);
+            }
+        } catch (JMException e) {
+            LOGGER.warn("Cannot register scan statistics as " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Tells if the statistics are recorded.
+     *
+     * @return <code>true</code> if enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Add the time spent in a stage.
+     *
+     * @param stage
+     *            The stage.
+     * @param nanos
+     *            The time in nanoseconds.
+     */
+    public void record(Stage stage, long nanos) {
+        stageTimes.addAndGet(stage.ordinal(), nanos);
+    }
+
+    /**
+     * Count a scanned file, no matter if it is analyzed.
+     */
+    public void scanned() {
+        scannedFileCount.incrementAndGet();
+    }
+
+    /**
+     * Count an analyzed file.
+     *
+     * @param size
+     *            The size of the file in bytes.
+     */
+    public void analyzed(long size) {
+        analyzedFileCount.incrementAndGet();
+        analyzedByteCount.addAndGet(size);
+    }
+
+    /**
+     * Count a file of which only the declarations have been analyzed, because
+     * it has exceeded its parse budget.
+     */
+    public void degraded() {
+        degradedFileCount.incrementAndGet();
+    }
+
+    /**
+     * Count a type referenced by a declaration.
+     *
+     * @param newDependency
+     *            <code>true</code> if the reference adds a dependency, i.e.
+     *            the type has not been referenced by the declaring type before.
+     */
+    public void referenced(boolean newDependency) {
+        typeReferenceCount.incrementAndGet();
+        if (newDependency) {
+            newDependencyCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Return the nanoseconds spent in a stage.
+     *
+     * @param stage
+     *            The stage.
+     * @return The time.
+     */
+    public long getTime(Stage stage) {
+        return stageTimes.get(stage.ordinal());
+    }
+
+    /**
+     * Log a summary and unregister the MBean, if enabled.
+     */
+    public synchronized void close() {
+        if (!enabled) {
+            return;
+        }
+        LOGGER.info("Scanned {} files, analyzed {} files with {} bytes in {} ms, {} files/s, {} bytes/s, "
+                + "{} degraded.", getScannedFileCount(), getAnalyzedFileCount(), getAnalyzedByteCount(),
+                millis(elapsed()), Math.round(getFilesPerSecond()), Math.round(getBytesPerSecond()),
+                getDegradedFileCount());
+        StringBuilder stages = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            stages.append(stages.length() == 0 ? "" : ", ").append(stage.name().toLowerCase()).append('=')
+                    .append(millis(getTime(stage))).append(" ms");
+        }
+        LOGGER.info("Scan stage times: {}", stages);
+        LOGGER.info("Resolved {} type references, {} added dependencies, type cache hit rate {}.",
+                getTypeReferenceCount(), getNewDependencyCount(), String.format("%.3f", getTypeCacheHitRate()));
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                LOGGER.warn("Cannot unregister scan statistics " + objectName, e);
+            }
+            objectName = null;
+        }
+        enabled = false;
+    }
+
+    private long elapsed() {
+        return System.nanoTime() - startTime;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private double perSecond(long count) {
+        long elapsed = elapsed();
+        return elapsed > 0 ? count * (double) TimeUnit.SECONDS.toNanos(1) / elapsed : 0;
+    }
+
+    @Override
+    public long getScannedFileCount() {
+        return scannedFileCount.get();
+    }
+
+    @Override
+    public long getAnalyzedFileCount() {
+        return analyzedFileCount.get();
+    }
+
+    @Override
+    public long getAnalyzedByteCount() {
+        return analyzedByteCount.get();
+    }
+
+    @Override
+    public long getDegradedFileCount() {
+        return degradedFileCount.get();
+    }
+
+    @Override
+    public double getFilesPerSecond() {
+        return perSecond(getScannedFileCount());
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return perSecond(getAnalyzedByteCount());
+    }
+
+    @Override
+    public long getReadTime() {
+        return millis(getTime(Stage.READ));
+    }
+
+    @Override
+    public long getDecodeTime() {
+        return millis(getTime(Stage.DECODE));
+    }
+
+    @Override
+    public long getLexTime() {
+        return millis(getTime(Stage.LEX));
+    }
+
+    @Override
+    public long getParseTime() {
+        return millis(getTime(Stage.PARSE));
+    }
+
+    @Override
+    public long getCommentTime() {
+        return millis(getTime(Stage.COMMENTS));
+    }
+
+    @Override
+    public long getWalkTime() {
+        return millis(getTime(Stage.WALK));
+    }
+
+    @Override
+    public long getEvaluationTime() {
+        return millis(getTime(Stage.EVALUATION));
+    }
+
+    @Override
+    public long getWriteTime() {
+        return millis(getTime(Stage.WRITE));
+    }
+
+    @Override
+    public long getTypeReferenceCount() {
+        return typeReferenceCount.get();
+    }
+
+    @Override
+    public long getNewDependencyCount() {
+        return newDependencyCount.get();
+    }
+
+    @Override
+    public double getTypeCacheHitRate() {
+        return typeResolver.getTypeCache().getStatistics().hitRate();
+    }
+
+    @Override
+    public long getTypeCacheEvictionCount() {
+        return typeResolver.getTypeCache().getStatistics().evictionCount();
+    }
+
+    @Override
+    public long getTypeLookupCount() {
+        return typeResolver.getLookupStatistics().getLookupCount();
+    }
+
+    @Override
+    public long getTypeLookupFoundCount() {
+        return typeResolver.getLookupStatistics().getFoundCount();
+    }
+}
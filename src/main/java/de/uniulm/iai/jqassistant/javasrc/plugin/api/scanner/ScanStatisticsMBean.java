@@ -0,0 +1,48 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner;
+
+/**
+ * Management interface of the {@link ScanStatistics} of a running scan. Times
+ * are summed up over all threads, in milliseconds.
+ */
+public interface ScanStatisticsMBean {
+
+    long getScannedFileCount();
+
+    long getAnalyzedFileCount();
+
+    long getAnalyzedByteCount();
+
+    long getDegradedFileCount();
+
+    double getFilesPerSecond();
+
+    double getBytesPerSecond();
+
+    long getReadTime();
+
+    long getDecodeTime();
+
+    long getLexTime();
+
+    long getParseTime();
+
+    long getCommentTime();
+
+    long getWalkTime();
+
+    long getEvaluationTime();
+
+    long getWriteTime();
+
+    long getTypeReferenceCount();
+
+    long getNewDependencyCount();
+
+    double getTypeCacheHitRate();
+
+    long getTypeCacheEvictionCount();
+
+    long getTypeLookupCount();
+
+    long getTypeLookupFoundCount();
+}
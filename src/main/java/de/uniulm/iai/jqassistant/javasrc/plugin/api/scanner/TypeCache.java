@@ -1,9 +1,19 @@
 package de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
-import com.google.common.cache.*;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.buschmais.jqassistant.core.store.api.model.Descriptor;
 import de.uniulm.iai.jqassistant.javasrc.plugin.model.ConstructorDescriptor;
 import de.uniulm.iai.jqassistant.javasrc.plugin.model.FieldDescriptor;
 import de.uniulm.iai.jqassistant.javasrc.plugin.model.FunctionDescriptor;
@@ -13,25 +23,83 @@ import de.uniulm.iai.jqassistant.javasrc.plugin.model.TypeDescriptor;
 
 /**
  * Cache for resolved types.
+ * <p>
+ * The cache is safe to be used by several threads. Its size is limited either
+ * by the number of types or by their weight, i.e. the number of their known
+ * members and dependencies. A type is weighed when it is put, once its members
+ * or dependencies are read and whenever it is weighed again explicitly, see
+ * {@link #reweigh(CachedType)}. Evicted types are read from the store again on
+ * their next resolution. Hits, misses, evictions and load times are recorded,
+ * see {@link #getStatistics()}.
+ * </p>
+ * <p>
+ * Members and dependencies of a type read from the store are read in one pass
+ * on their first use, most resolved types are only referenced and never need
+ * them. The number of types read and of member and dependency passes are
+ * counted, see {@link #getStoredTypeCount()}.
+ * </p>
+ * <p>
+ * Fully qualified names and signatures are interned by the cache, see
+ * {@link #intern(String)}, so keys, members and descriptor properties share
+ * one instance per distinct string for the whole scan.
+ * </p>
  */
 public class TypeCache {
 
-    private Cache<String, CachedType> lruCache;
-    private Cache<String, CachedType> softCache;
+    /**
+     * Default maximum number of cached types.
+     */
+    public static final long DEFAULT_MAXIMUM_SIZE = 65536;
+
+    private volatile Cache<String, CachedType> cache;
+
+    private volatile boolean weighted;
+
+    private final AtomicLong storedTypeCount = new AtomicLong();
+
+    private final AtomicLong memberLoadCount = new AtomicLong();
+
+    private final AtomicLong dependencyLoadCount = new AtomicLong();
+
+    private final Interner<String> names = Interners.newWeakInterner();
 
     /**
      * Constructor.
      */
     TypeCache() {
-        this.lruCache = CacheBuilder.newBuilder().maximumSize(8192).removalListener(new RemovalListener<String, CachedType>() {
-            @Override
-            public void onRemoval(RemovalNotification<String, CachedType> notification) {
-                if (RemovalCause.SIZE.equals(notification.getCause())) {
-                    softCache.put(notification.getKey(), notification.getValue());
+        this.cache = build(DEFAULT_MAXIMUM_SIZE, 0);
+    }
+
+    /**
+     * Limit the size of the cache. Types already cached are kept as far as the
+     * new limit allows, the statistics are reset.
+     *
+     * @param maximumSize
+     *            The maximum number of types, only used if no maximum weight
+     *            is given.
+     * @param maximumWeight
+     *            The maximum total weight of all types, 0 if the size is
+     *            limited by the number of types. The weight of a type is 1
+     *            plus the number of its loaded members and dependencies.
+     */
+    public synchronized void configure(long maximumSize, long maximumWeight) {
+        Cache<String, CachedType> configured = build(maximumSize, maximumWeight);
+        configured.putAll(cache.asMap());
+        cache = configured;
+        weighted = maximumWeight > 0;
+    }
+
+    private static Cache<String, CachedType> build(long maximumSize, long maximumWeight) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+        if (maximumWeight > 0) {
+            return builder.maximumWeight(maximumWeight).weigher(new Weigher<String, CachedType>() {
+                @Override
+                public int weigh(String fullQualifiedName, CachedType cachedType) {
+                    return cachedType.weight();
                 }
-            }
-        }).build();
-        this.softCache = CacheBuilder.newBuilder().softValues().build();
+            }).build();
+        }
+        return builder.maximumSize(maximumSize).build();
     }
 
     /**
@@ -42,15 +110,27 @@ public class TypeCache {
      * @return The cached type or <code>null</code>.
      */
     public CachedType get(String fullQualifiedName) {
-        CachedType cachedType = lruCache.getIfPresent(fullQualifiedName);
-        if (cachedType != null) {
-            return cachedType;
-        }
-        cachedType = softCache.getIfPresent(fullQualifiedName);
-        if (cachedType != null) {
-            lruCache.put(fullQualifiedName, cachedType);
+        return cache.getIfPresent(fullQualifiedName);
+    }
+
+    /**
+     * Find a type by its fully qualified name, load it if it is not cached.
+     * Concurrent requests of the same type wait for a single load.
+     *
+     * @param fullQualifiedName
+     *            The fqn.
+     * @param loader
+     *            Loads the type.
+     * @return The cached type.
+     */
+    public CachedType get(String fullQualifiedName, Callable<? extends CachedType> loader) {
+        try {
+            return cache.get(fullQualifiedName, loader);
+        } catch (UncheckedExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cannot load type " + fullQualifiedName, e.getCause());
         }
-        return cachedType;
     }
 
     /**
@@ -62,19 +142,126 @@ public class TypeCache {
      *            The type.
      */
     public void put(String fullQualifiedName, CachedType cachedType) {
-        lruCache.put(fullQualifiedName, cachedType);
+        cache.put(fullQualifiedName, cachedType);
+    }
+
+    /**
+     * Weigh a type again, e.g. once members or dependencies have been added.
+     * The cache weighs a type only when it is put, hence the type is put again
+     * if it is still cached. Does nothing if the size of the cache is limited
+     * by the number of types.
+     *
+     * @param cachedType
+     *            The type.
+     */
+    public void reweigh(CachedType<?> cachedType) {
+        if (weighted) {
+            cache.asMap().replace(cachedType.getTypeDescriptor().getFullQualifiedName(), cachedType, cachedType);
+        }
+    }
+
+    /**
+     * Remove a type.
+     *
+     * @param fullQualifiedName
+     *            The fqn.
+     */
+    public void remove(String fullQualifiedName) {
+        cache.invalidate(fullQualifiedName);
+    }
+
+    /**
+     * Return the canonical instance of a fully qualified name, signature or
+     * name. Instances no longer referenced are dropped from the pool.
+     *
+     * @param name
+     *            The name.
+     * @return The canonical instance equal to the name.
+     */
+    public String intern(String name) {
+        return names.intern(name);
+    }
+
+    /**
+     * Return hit, miss, eviction and load time statistics since the cache has
+     * been configured.
+     *
+     * @return The statistics.
+     */
+    public CacheStats getStatistics() {
+        return cache.stats();
+    }
+
+    /**
+     * Wrap a type read from the store, its members and dependencies are read
+     * on first use.
+     *
+     * @param typeDescriptor
+     *            The type descriptor.
+     * @return The cached type.
+     */
+    public <T extends TypeDescriptor> CachedType<T> stored(T typeDescriptor) {
+        storedTypeCount.incrementAndGet();
+        return new CachedType<>(typeDescriptor, this);
+    }
+
+    /**
+     * Wrap a type just created in the store, which has neither members nor
+     * dependencies yet.
+     *
+     * @param typeDescriptor
+     *            The type descriptor.
+     * @return The cached type.
+     */
+    public <T extends TypeDescriptor> CachedType<T> created(T typeDescriptor) {
+        CachedType<T> cachedType = new CachedType<>(typeDescriptor, null);
+        cachedType.members = new ConcurrentHashMap<>();
+        cachedType.dependencies = new ConcurrentHashMap<>();
+        return cachedType;
+    }
+
+    /**
+     * Return the number of types read from the store.
+     *
+     * @return The number of stored types.
+     */
+    public long getStoredTypeCount() {
+        return storedTypeCount.get();
+    }
+
+    /**
+     * Return the number of stored types whose members have been read.
+     *
+     * @return The number of member loads.
+     */
+    public long getMemberLoadCount() {
+        return memberLoadCount.get();
+    }
+
+    /**
+     * Return the number of stored types whose dependencies have been read.
+     *
+     * @return The number of dependency loads.
+     */
+    public long getDependencyLoadCount() {
+        return dependencyLoadCount.get();
     }
 
     /**
      * Represents a type and all of its declared members.
+     * <p>
+     * Members and dependencies are read from the type descriptor on first
+     * access, each in a single pass.
+     * </p>
      *
      * @param <T>
      *            The descriptor type.
      */
     public static class CachedType<T extends TypeDescriptor> {
-        private T typeDescriptor;
-        private Map<String, MemberDescriptor> members = new HashMap<>();
-        private Map<String, TypeDescriptor> dependencies = new HashMap<>();
+        private volatile T typeDescriptor;
+        private final TypeCache owner;
+        private volatile Map<String, MemberDescriptor> members;
+        private volatile Map<String, TypeDescriptor> dependencies;
 
         /**
          * Constructor.
@@ -83,7 +270,12 @@ public class TypeCache {
          *            The type descriptor.
          */
         public CachedType(T typeDescriptor) {
+            this(typeDescriptor, null);
+        }
+
+        private CachedType(T typeDescriptor, TypeCache owner) {
             this.typeDescriptor = typeDescriptor;
+            this.owner = owner;
         }
 
         public T getTypeDescriptor() {
@@ -95,27 +287,90 @@ public class TypeCache {
         }
 
         public FieldDescriptor getField(String signature) {
-            return (FieldDescriptor) members.get(signature);
+            return (FieldDescriptor) members().get(signature);
         }
 
         public MethodDescriptor getMethod(String signature) {
-            return (MethodDescriptor) members.get(signature);
+            return (MethodDescriptor) members().get(signature);
         }
 
         public ConstructorDescriptor getConstructor(String signature) {
-            return (ConstructorDescriptor) members.get(signature);
+            return (ConstructorDescriptor) members().get(signature);
         }
 
         public void addMember(String signature, MemberDescriptor member) {
-            members.put(signature, member);
+            members().put(signature, member);
         }
 
         public TypeDescriptor getDependency(String fullQualifiedName) {
-            return dependencies.get(fullQualifiedName);
+            return dependencies().get(fullQualifiedName);
         }
 
         public void addDependency(String fullQualifiedName, TypeDescriptor dependency) {
-            dependencies.put(fullQualifiedName, dependency);
+            dependencies().put(fullQualifiedName, dependency);
+        }
+
+        private Map<String, MemberDescriptor> members() {
+            Map<String, MemberDescriptor> loaded = members;
+            if (loaded == null) {
+                synchronized (this) {
+                    loaded = members;
+                    if (loaded == null) {
+                        loaded = new ConcurrentHashMap<>();
+                        for (Descriptor descriptor : typeDescriptor.getDeclaredMembers()) {
+                            // Declared inner types are members without a signature
+                            if (descriptor instanceof MemberDescriptor && ((MemberDescriptor) descriptor).getSignature() != null) {
+                                MemberDescriptor memberDescriptor = (MemberDescriptor) descriptor;
+                                loaded.put(memberDescriptor.getSignature(), memberDescriptor);
+                            }
+                        }
+                        if (owner != null) {
+                            owner.memberLoadCount.incrementAndGet();
+                        }
+                        members = loaded;
+                    }
+                }
+                if (owner != null) {
+                    owner.reweigh(this);
+                }
+            }
+            return loaded;
+        }
+
+        private Map<String, TypeDescriptor> dependencies() {
+            Map<String, TypeDescriptor> loaded = dependencies;
+            if (loaded == null) {
+                synchronized (this) {
+                    loaded = dependencies;
+                    if (loaded == null) {
+                        loaded = new ConcurrentHashMap<>();
+                        for (TypeDescriptor dependency : typeDescriptor.getDependencies()) {
+                            loaded.put(dependency.getFullQualifiedName(), dependency);
+                        }
+                        if (owner != null) {
+                            owner.dependencyLoadCount.incrementAndGet();
+                        }
+                        dependencies = loaded;
+                    }
+                }
+                if (owner != null) {
+                    owner.reweigh(this);
+                }
+            }
+            return loaded;
+        }
+
+        /**
+         * Return the weight of the type, i.e. 1 plus the number of loaded
+         * members and dependencies. The weight grows as members and
+         * dependencies are loaded or added, the cache only notices if the type
+         * is weighed again.
+         */
+        int weight() {
+            Map<String, MemberDescriptor> loadedMembers = members;
+            Map<String, TypeDescriptor> loadedDependencies = dependencies;
+            return 1 + (loadedMembers != null ? loadedMembers.size() : 0)
+                    + (loadedDependencies != null ? loadedDependencies.size() : 0);
         }
 
         @Override
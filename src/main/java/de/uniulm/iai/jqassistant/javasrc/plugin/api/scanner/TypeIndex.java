@@ -0,0 +1,106 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.buschmais.jqassistant.core.store.api.Store;
+import com.buschmais.xo.api.Query;
+
+/**
+ * Names of all types contained in the store, read by a single query.
+ * <p>
+ * The names found by the query are kept in a sorted array, types created
+ * afterwards by the resolver are added to a concurrent set. A type missing in
+ * the index is not contained in the store, so it can be created without
+ * looking it up. Types removed from the store are not removed from the index,
+ * hence a type contained in the index still needs to be looked up.
+ * </p>
+ * <p>
+ * The index does not see types created by other scanner plugins after it has
+ * been loaded, so it must only be used if no other plugin creates types
+ * during the scan.
+ * </p>
+ */
+public class TypeIndex {
+
+    private static final String QUERY = "match (type:Type) where has(type.fqn) return type.fqn as fqn";
+
+    private final String[] preloaded;
+
+    private final Set<String> added = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private TypeIndex(String[] preloaded) {
+        this.preloaded = preloaded;
+    }
+
+    /**
+     * Read the names of all types of the store.
+     *
+     * @param store
+     *            The store.
+     * @return The type index.
+     */
+    public static TypeIndex load(Store store) {
+        List<String> names = new ArrayList<>();
+        try (Query.Result<Query.Result.CompositeRowObject> result = store.executeQuery(QUERY)) {
+            for (Query.Result.CompositeRowObject row : result) {
+                names.add(row.get("fqn", String.class));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load type index", e);
+        }
+        String[] preloaded = names.toArray(new String[names.size()]);
+        Arrays.sort(preloaded);
+        return new TypeIndex(preloaded);
+    }
+
+    /**
+     * Return if the given type might be contained in the store.
+     *
+     * @param fullQualifiedName
+     *            The fqn.
+     * @return <code>false</code> if the type is not contained in the store.
+     */
+    public boolean mightContain(String fullQualifiedName) {
+        return Arrays.binarySearch(preloaded, fullQualifiedName) >= 0 || added.contains(fullQualifiedName);
+    }
+
+    /**
+     * Add a type created in the store.
+     *
+     * @param fullQualifiedName
+     *            The fqn.
+     */
+    public void add(String fullQualifiedName) {
+        added.add(fullQualifiedName);
+    }
+
+    /**
+     * Return the number of types read from the store.
+     *
+     * @return The number of preloaded types.
+     */
+    public int getPreloadedCount() {
+        return preloaded.length;
+    }
+
+    /**
+     * Estimate the memory used by the preloaded names, assuming compressed
+     * object references.
+     *
+     * @return The estimated size in bytes.
+     */
+    public long estimateMemory() {
+        long size = 16 + 4L * preloaded.length;
+        for (String name : preloaded) {
+            // String object plus its char array
+            size += 24 + 16 + 2L * name.length();
+        }
+        return size;
+    }
+}
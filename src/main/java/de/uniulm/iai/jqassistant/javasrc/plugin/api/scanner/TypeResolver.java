@@ -38,4 +38,39 @@ public interface TypeResolver {
      */
     TypeCache.CachedType<TypeDescriptor> resolve(String fullQualifiedName, ScannerContext context);
 
+    /**
+     * Forget a previously resolved type, e.g. because its members have been
+     * removed from the store. The next resolution reads it from the store
+     * again.
+     *
+     * @param fullQualifiedName
+     *            The fully qualified type name.
+     */
+    void evict(String fullQualifiedName);
+
+    /**
+     * Return the cache of resolved types, e.g. to configure its size or to
+     * read its statistics.
+     *
+     * @return The type cache.
+     */
+    TypeCache getTypeCache();
+
+    /**
+     * Return the number of types looked up in and created in the store.
+     *
+     * @return The lookup statistics.
+     */
+    LookupStatistics getLookupStatistics();
+
+    /**
+     * Read the names of all types of the store at once. Afterwards, types not
+     * contained in the store are created without looking them up, see
+     * {@link TypeIndex}.
+     *
+     * @param context
+     *            The scanner context.
+     */
+    void preloadTypeIndex(ScannerContext context);
+
 }
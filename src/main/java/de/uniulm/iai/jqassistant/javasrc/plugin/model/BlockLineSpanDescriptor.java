@@ -1,6 +1,10 @@
 package de.uniulm.iai.jqassistant.javasrc.plugin.model;
 
 import com.buschmais.xo.neo4j.api.annotation.Property;
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.CommentDescriptor;
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.FanOutDescriptor;
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.LinesDescriptor;
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.LocDescriptor;
 import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.NcscssDescriptor;
 
 /**
@@ -8,7 +12,8 @@ import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.NcscssDescriptor;
  *
  * @author Steffen Kram
  */
-public interface BlockLineSpanDescriptor extends LineNumberDescriptor, NcscssDescriptor {
+public interface BlockLineSpanDescriptor extends LineNumberDescriptor, NcscssDescriptor, LocDescriptor,
+        LinesDescriptor, CommentDescriptor, FanOutDescriptor {
 
     @Property("endingLine")
     int getEndLineNumber();
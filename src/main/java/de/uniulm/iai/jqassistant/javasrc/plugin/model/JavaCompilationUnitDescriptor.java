@@ -3,6 +3,7 @@ package de.uniulm.iai.jqassistant.javasrc.plugin.model;
 import com.buschmais.jqassistant.core.store.api.model.FullQualifiedNameDescriptor;
 import com.buschmais.jqassistant.core.store.api.model.NamedDescriptor;
 import com.buschmais.jqassistant.plugin.common.api.model.FileDescriptor;
+import com.buschmais.jqassistant.plugin.common.api.model.MD5Descriptor;
 import com.buschmais.xo.api.Query;
 import com.buschmais.xo.api.annotation.ResultOf;
 import com.buschmais.xo.api.annotation.ResultOf.Parameter;
@@ -13,6 +14,9 @@ import com.buschmais.xo.neo4j.api.annotation.Relation.Outgoing;
 import de.uniulm.iai.jqassistant.javasrc.plugin.api.annotation.Declares;
 import de.uniulm.iai.jqassistant.javasrc.plugin.api.annotation.IsMainType;
 import de.uniulm.iai.jqassistant.javasrc.plugin.api.annotation.RequiresType;
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.CommentDescriptor;
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.LinesDescriptor;
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.LocDescriptor;
 
 import java.util.List;
 
@@ -21,15 +25,75 @@ import java.util.List;
  *
  * @author Steffen Kram
  */
-@Label("JavaCompilationUnit")
+@Label(value = "JavaCompilationUnit", usingIndexedPropertyOf = FullQualifiedNameDescriptor.class)
 public interface JavaCompilationUnitDescriptor extends FullQualifiedNameDescriptor, NamedDescriptor,
-        FileDescriptor, JavaSourceDescriptor {
+        FileDescriptor, MD5Descriptor, JavaSourceDescriptor, LocDescriptor, LinesDescriptor,
+        CommentDescriptor {
 
     @Property("mayCompile")
     Boolean isMayCompile();
 
     void setMayCompile(Boolean mayCompile);
 
+    /**
+     * Return the size of the source file in bytes at the time it has been
+     * scanned.
+     *
+     * @return The file size.
+     */
+    @Property("size")
+    Long getSize();
+
+    void setSize(Long size);
+
+    /**
+     * Return the modification time of the source file at the time it has
+     * been scanned.
+     *
+     * @return The modification time in milliseconds since the epoch.
+     */
+    @Property("lastModified")
+    Long getLastModified();
+
+    void setLastModified(Long lastModified);
+
+    /**
+     * Return the absolute path of the scanned source file, if it has been
+     * read from the file system.
+     *
+     * @return The absolute path or <code>null</code>.
+     */
+    @Property("location")
+    String getLocation();
+
+    void setLocation(String location);
+
+    /**
+     * Return the fingerprint of the configuration the source file has been
+     * analyzed with, i.e. of the metric profile and the parse budget. It is
+     * set once the analysis has been written completely.
+     *
+     * @return The fingerprint or <code>null</code>.
+     */
+    @Property("fingerprint")
+    String getFingerprint();
+
+    void setFingerprint(String fingerprint);
+
+    /**
+     * Return why only the declarations of the source have been analyzed,
+     * i.e. the parse budget it has exceeded. Neither the bodies of its
+     * functions nor the types declared within them have been scanned, its
+     * declarations have not been measured.
+     *
+     * @return The reason or <code>null</code> if the source has been analyzed
+     *         completely.
+     */
+    @Property("degradation")
+    String getDegradation();
+
+    void setDegradation(String degradation);
+
     @Outgoing
     @IsMainType
     TypeDescriptor getMainType();
@@ -0,0 +1,66 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.model.measure;
+
+import com.buschmais.xo.neo4j.api.annotation.Property;
+
+/**
+ * Numbers, lines and lengths of the comments attributed to a declaration,
+ * without those of the declarations within it. Documentation lines and length
+ * include line and block comments, but no javadoc.
+ * <p>
+ * All values are written, zeros included, so a rescan overwrites the values of
+ * a type whose comments have been removed. The former comment visitor only
+ * wrote values greater than zero.
+ * </p>
+ */
+public interface CommentDescriptor extends MeasureDescriptor {
+
+    @Property("LINE_COMMENT_COUNT")
+    Long getLineCommentCount();
+
+    void setLineCommentCount(Long count);
+
+    @Property("LINE_COMMENT_LENGTH")
+    Long getLineCommentLength();
+
+    void setLineCommentLength(Long length);
+
+    @Property("BLOCK_COMMENT_COUNT")
+    Long getBlockCommentCount();
+
+    void setBlockCommentCount(Long count);
+
+    @Property("BLOCK_COMMENT_LINES")
+    Long getBlockCommentLines();
+
+    void setBlockCommentLines(Long lines);
+
+    @Property("BLOCK_COMMENT_LENGTH")
+    Long getBlockCommentLength();
+
+    void setBlockCommentLength(Long length);
+
+    @Property("JAVADOC_COUNT")
+    Long getJavadocCount();
+
+    void setJavadocCount(Long count);
+
+    @Property("JAVADOC_LINES")
+    Long getJavadocLines();
+
+    void setJavadocLines(Long lines);
+
+    @Property("JAVADOC_LENGTH")
+    Long getJavadocLength();
+
+    void setJavadocLength(Long length);
+
+    @Property("DOC_LINES")
+    Long getDocLines();
+
+    void setDocLines(Long lines);
+
+    @Property("DOC_LENGTH")
+    Long getDocLength();
+
+    void setDocLength(Long length);
+}
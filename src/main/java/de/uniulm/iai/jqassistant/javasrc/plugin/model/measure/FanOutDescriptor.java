@@ -0,0 +1,16 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.model.measure;
+
+import com.buschmais.xo.neo4j.api.annotation.Property;
+
+/**
+ * Number of distinct resolved types used by the fields of a type or the
+ * parameters of a function, including their type arguments, apart from
+ * primitives and common classes like those of <code>java.lang</code>.
+ */
+public interface FanOutDescriptor extends MeasureDescriptor {
+
+    @Property("FANOUT")
+    Long getFanOut();
+
+    void setFanOut(Long count);
+}
@@ -0,0 +1,14 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.model.measure;
+
+import com.buschmais.xo.neo4j.api.annotation.Property;
+
+/**
+ * Lines, including blank lines and comments.
+ */
+public interface LinesDescriptor extends MeasureDescriptor {
+
+    @Property("LINES")
+    Long getLines();
+
+    void setLines(Long count);
+}
@@ -0,0 +1,14 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.model.measure;
+
+import com.buschmais.xo.neo4j.api.annotation.Property;
+
+/**
+ * Lines of code, i.e. the lines carrying code apart from comments.
+ */
+public interface LocDescriptor extends MeasureDescriptor {
+
+    @Property("LOC")
+    Long getLinesOfCode();
+
+    void setLinesOfCode(Long count);
+}
@@ -0,0 +1,85 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.lib.ast
+
+import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree
+
+/**
+ * Depth-first traversal of antlr trees.
+ *
+ * Nodes are visited in pre-order, i.e. each node before its children and the children from left to right. Pending
+ * nodes are kept on a single array based stack, so no collection is allocated per visited node.
+ */
+object TreeTraversal {
+
+  private val InitialStackSize = 64
+
+  /** Visit the given node and all of its descendants. */
+  def foreach(root: EnhancedCommonTree)(f: EnhancedCommonTree => Unit): Unit = {
+    val stack = new NodeStack
+    stack.push(root)
+    traverse(stack, f)
+  }
+
+  /** Visit the given nodes from left to right, each one followed by all of its descendants. */
+  def foreach(roots: Seq[EnhancedCommonTree])(f: EnhancedCommonTree => Unit): Unit = {
+    val stack = new NodeStack
+    var i = roots.size - 1
+    while (i >= 0) {
+      stack.push(roots(i))
+      i -= 1
+    }
+    traverse(stack, f)
+  }
+
+  private def traverse(stack: NodeStack, f: EnhancedCommonTree => Unit): Unit = {
+    while (stack.nonEmpty) {
+      val node = stack.pop()
+      f(node)
+
+      // Push children in reverse order, so the leftmost child is visited next
+      var i = node.getChildCount - 1
+      while (i >= 0) {
+        stack.push(node.getChild(i))
+        i -= 1
+      }
+    }
+  }
+
+  private class NodeStack {
+    private var nodes = new Array[EnhancedCommonTree](InitialStackSize)
+    private var size = 0
+
+    def nonEmpty: Boolean = size > 0
+
+    def push(node: EnhancedCommonTree): Unit = {
+      if (size == nodes.length) {
+        nodes = java.util.Arrays.copyOf(nodes, size * 2)
+      }
+      nodes(size) = node
+      size += 1
+    }
+
+    def pop(): EnhancedCommonTree = {
+      size -= 1
+      val node = nodes(size)
+      nodes(size) = null
+      node
+    }
+  }
+}
@@ -15,32 +15,27 @@
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
-
 package de.uniulm.iai.comma.measurement.ast
 
-import com.buschmais.jqassistant.core.store.api.model.Descriptor
-import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree
-import de.uniulm.iai.comma.model.{Value, Measure}
-
-object SlocVisitor extends TreeVisitorFactory {
-  def measures(): Iterable[Measure] = Vector(Measure.LOC)
-
-  def createVisitor(descriptor: Descriptor, artifact: Option[String]): SlocVisitor = {
-    new SlocVisitor(artifact)
-  }
-}
+/**
+ * Nanoseconds spent in the stages of the analyses recorded by an [[AstAnalyzer]], see
+ * [[AstAnalyzer.recordTimes]]. The times of several runs are summed up. Not safe to be shared between threads.
+ */
+final class AnalysisTimes {
 
-class SlocVisitor(artifact: Option[String]) extends TreeVisitor {
+  /** Time spent lexing, parsing, attaching comments, walking the tree and evaluating the visitors. */
+  var lex, parse, comments, walk, evaluation = 0L
 
-  val loc = Set.newBuilder[Int]
+  private var last = 0L
 
-  def visit(node: EnhancedCommonTree) = {
-    loc += node.getLine
-    loc += node.getLastLine
-  }
+  /** Start a lap. */
+  def start(): Unit = last = System.nanoTime
 
-  override def measuredValues(): Iterable[Value] = Vector {
-    Value(artifact, Measure.LOC, loc.result().size)
+  /** Return the nanoseconds since the last lap and start the next one. */
+  def lap(): Long = {
+    val now = System.nanoTime
+    val elapsed = now - last
+    last = now
+    elapsed
   }
-
 }
@@ -18,122 +18,204 @@
 package de.uniulm.iai.comma.measurement.ast
 
 import java.io.Reader
+import java.util.concurrent.TimeUnit
 
+import de.uniulm.iai.comma.lib.ast.TreeTraversal
 import de.uniulm.iai.comma.lib.ast.javasource._
-import org.antlr.runtime.{ANTLRReaderStream, CommonTokenStream, Token}
+import org.antlr.runtime.{ANTLRReaderStream, CharStream, Token}
 import org.apache.commons.logging.LogFactory
 
-import scala.annotation.tailrec
 import scala.collection.JavaConversions._
-import scala.collection.{SortedMap, mutable}
 
-trait AstAnalyzer extends TreeWalker {
-  private val logger = LogFactory.getLog(this.getClass)
-
-  private val visitorReg = Vector.newBuilder[TreeVisitor]
-  override def visitors = visitorReg.result()
+object AstAnalyzer {
+
+  /**
+   * Attach the hidden tokens collected while lexing to the nodes of the parsed trees.
+   *
+   * @param nodes
+   *    Root nodes of the parsed trees.
+   * @param tokenCount
+   *    Number of tokens in the token stream the trees have been parsed from.
+   * @param tokens
+   *    Hidden tokens, ordered by their token index.
+   * @return Tokens that could not be attached to any node ... should always be empty!
+   */
+  def attachHiddenTokens(nodes: IndexedSeq[EnhancedCommonTree], tokenCount: Int,
+                         tokens: java.util.List[Token]): IndexedSeq[Token] = {
+    addHiddenTokens(orderedNodeList(nodes, tokenCount), tokens)
+  }
 
-  def addVisitor(visitor: TreeVisitor) = visitorReg += visitor
+  /**
+   * Return all nodes indexed by the index of their token. Nodes without a token of the input stream are skipped. If
+   * several nodes share a token, the last one in depth-first order is kept.
+   */
+  private def orderedNodeList(nodes: IndexedSeq[EnhancedCommonTree], tokenCount: Int): Array[EnhancedCommonTree] = {
+    var nodesByIndex = new Array[EnhancedCommonTree](tokenCount)
+    TreeTraversal.foreach(nodes) { node =>
+      val index = node.getToken.getTokenIndex
+      if (index >= 0) {
+        if (index >= nodesByIndex.length) nodesByIndex = java.util.Arrays.copyOf(nodesByIndex, index + 1)
+        nodesByIndex(index) = node
+      }
+    }
+    nodesByIndex
+  }
 
-  def runWith(src: Reader): Unit = {
-    val input = new ANTLRReaderStream(src)
-
-    // Setup lexer to preserve all comments
-    val lexer = new JavaLexer(input)
-    lexer.mPreserveBlockComments = true
-    lexer.mPreserveJavaDocComments = true
-    lexer.mPreserveLineComments = true
-
-    // Create custom comment collector
-    val commentTokens = List[java.lang.Integer](
-      JavaLexer.BLOCK_COMMENT,
-      JavaLexer.LINE_COMMENT,
-      JavaLexer.JAVADOC_COMMENT)
-    val tokenSource = new CollectorTokenSource(lexer, commentTokens)
-
-
-    // Pass comment-enhanced token stream to generated parser
-    val tokens = new CommonTokenStream(tokenSource)
-    val parser = new JavaParser(tokens)
-    parser.enableErrorMessageCollection(true)
-    parser.setTreeAdaptor(new EnhancedCommonTreeAdapter)
-
-    // Parse java source
-    val javaSource = parser.javaSource
-    if (!parser.hasErrors) {
-      val tree = Vector(javaSource.getTree.asInstanceOf[EnhancedCommonTree])
-
-      val leftTokens = addHiddenTokens(
-          None,
-          orderedNodeList(tree),
-          SortedMap(tokenSource.getCollectedTokens.map(t => (t.getTokenIndex, t)): _*))
-      if (!leftTokens.isEmpty) {
-        logger.warn(s"Unable to match ${leftTokens.size} tokens: \n${leftTokens}")
+  /**
+   * Attach the hidden tokens to the nodes, in a single merge of both lists by token index.
+   *
+   * Tokens in front of a node are added as preceding tokens to that node, except those on the last line of the
+   * previous node, which are added as following tokens to the previous node. Tokens behind the last node are added
+   * as following tokens to the last node.
+   *
+   * @param nodesByIndex
+   *    Nodes indexed by their token index.
+   * @param tokens
+   *    Hidden tokens, ordered by their token index.
+   * @return Tokens that could not be attached to any node ... should always be empty!
+   */
+  private def addHiddenTokens(nodesByIndex: Array[EnhancedCommonTree], tokens: java.util.List[Token]): IndexedSeq[Token] = {
+    var previousNode: EnhancedCommonTree = null
+    var nodeIndex = 0
+    var tokenIndex = 0
+
+    while (nodeIndex < nodesByIndex.length && tokenIndex < tokens.size) {
+      val node = nodesByIndex(nodeIndex)
+      if (node != null) {
+
+        // Fetch all tokens with a token index less than current node index
+        val firstToken = tokenIndex
+        while (tokenIndex < tokens.size && tokens.get(tokenIndex).getTokenIndex < nodeIndex) tokenIndex += 1
+
+        // Add all current tokens with same line number as previous node as following tokens to the previous node
+        var firstPreceding = firstToken
+        if (previousNode != null) {
+          val lastLine = previousNode.getLastLine
+          while (firstPreceding < tokenIndex && tokens.get(firstPreceding).getLine == lastLine) firstPreceding += 1
+          previousNode.addFollowing(tokens.subList(firstToken, firstPreceding))
+        }
+
+        // Add all other tokens as preceding tokens to the current node
+        node.addPreceding(tokens.subList(firstPreceding, tokenIndex))
+        previousNode = node
       }
+      nodeIndex += 1
+    }
 
-      walk(tree)
+    // There might be remaining comment-tokens at the end of a file. Add them as following to the last node, if their
+    // token-index is greater than the last nodes token index.
+    val leftTokens = tokens.subList(tokenIndex, tokens.size)
+    if (previousNode == null) {
+      leftTokens.toVector
     } else {
-      parser.getMessages.foreach(println)
+      val lastIndex = previousNode.getToken.getTokenIndex
+      val (following, unmatched) = leftTokens.partition(_.getTokenIndex > lastIndex)
+      previousNode.addFollowing(following)
+      unmatched.toVector
     }
   }
+}
 
-  private def orderedNodeList(nodes: IndexedSeq[EnhancedCommonTree]): SortedMap[Int, EnhancedCommonTree] = {
-
-    @tailrec
-    def buildMap(nodes: IndexedSeq[EnhancedCommonTree],
-                         builder: mutable.Builder[(Int, EnhancedCommonTree), SortedMap[Int, EnhancedCommonTree]]):
-    SortedMap[Int, EnhancedCommonTree] = {
-
-      val node = nodes(0)
-      if (node.getToken.getTokenIndex >= 0) builder += ((node.getToken.getTokenIndex, node))
+trait AstAnalyzer extends TreeWalker {
+  private val logger = LogFactory.getLog(this.getClass)
 
-      val leftNodes = if (node.getChildCount > 0) node.getChildren.toIndexedSeq ++ nodes.tail else nodes.tail
-      if (leftNodes.isEmpty) builder.result() else buildMap(leftNodes, builder)
-    }
+  private val visitorReg = Vector.newBuilder[TreeVisitor]
+  override def visitors = visitorReg.result()
 
-    buildMap(nodes, SortedMap.newBuilder[Int, EnhancedCommonTree])
-  }
+  def addVisitor(visitor: TreeVisitor) = visitorReg += visitor
 
-  @tailrec
-  private def addHiddenTokens(
-      previousNode: Option[EnhancedCommonTree],
-      nodes: SortedMap[Int, EnhancedCommonTree],
-      tokens: SortedMap[Int, Token]):
-      IndexedSeq[Token] = {
-
-    // Fetch all tokens with a token index less than current node index
-    val node = nodes.head
-    val currentTokens = tokens.takeWhile(t => t._1 < node._1).map(_._2)
-
-    // Add all current tokens with same line number as previous node as following tokens to the previous node
-    val previousTokens =
-      if (previousNode.isDefined) {
-        val res = currentTokens.takeWhile(t => t.getLine == previousNode.get.getLastLine)
-        previousNode.get.addFollowing(res)
-        res
+  /** Times of the stages of the runs, not recorded if `null`. */
+  protected var times: AnalysisTimes = null
+
+  /** Add the time spent in each stage of the following runs to the given times. */
+  def recordTimes(times: AnalysisTimes): Unit = this.times = times
+
+  /** Limits of parsing the source, see [[ParseBudget]]. */
+  def parseBudget: ParseBudget = ParseBudget.Unlimited
+
+  private var degradationReason: Option[String] = None
+
+  /**
+   * Why the last run has been degraded, if it has. A source exceeding its parse budget is parsed again without the
+   * bodies of its functions and initializers, see [[JavaSourceParser.parseSkeleton]]. The walk only visits its
+   * declarations and no comments are attached.
+   */
+  def degradation: Option[String] = degradationReason
+
+  /** Called before the declarations of a degraded source are walked, e.g. to drop visitors of function bodies. */
+  protected def degrade(reason: String): Unit = {}
+
+  /** Whether the lines of code of each run are marked, see [[lines]]. */
+  def countsLines: Boolean = false
+
+  private var lineSet: LineSet = null
+
+  /**
+   * The lines of code of the last run if [[countsLines]], marked from all tokens of the source in a single pass. The
+   * lines of code of any declaration are counted from its line span.
+   */
+  def lines: Option[LineSet] = Option(lineSet)
+
+  /** Whether the comments of each run are collected, see [[comments]]. */
+  def countsComments: Boolean = false
+
+  private var commentSet: CommentSet = null
+
+  /**
+   * The comments of the last run if [[countsComments]], collected from the tokens of the source without attaching
+   * them to the nodes.
+   */
+  def comments: Option[CommentSet] = Option(commentSet)
+
+  def runWith(src: Reader): Unit = runWith(new ANTLRReaderStream(src))
+
+  /** Analyze the given characters, e.g. an [[org.antlr.runtime.ANTLRStringStream]] on an already decoded source. */
+  def runWith(input: CharStream): Unit = {
+    // Lexer and parser of the current thread, comments are skipped unless they are counted or a visitor needs them
+    val attachComments = visitors.exists(_.needsComments)
+    val parser = JavaSourceParser.get
+    if (times != null) times.start()
+    try {
+      parser.tokenize(input, attachComments || countsComments)
+      lineSet = if (countsLines) LineSet.of(parser.getTokens) else null
+      commentSet = if (countsComments) {
+        CommentSet.of(parser.getTokens, parser.getCollectedTokens, parser.getCollectedEndLine)
+      } else null
+      if (times != null) times.lex += times.lap()
+      val budget = parseBudget
+      degradationReason = budget.exceededBy(parser.getTokenCount)
+      val javaSource = degradationReason match {
+        case None =>
+          try parser.parse(budget.maxMillis, TimeUnit.MILLISECONDS) catch {
+            case e: ParseBudgetExceededException =>
+              degradationReason = Some(e.getMessage)
+              parseSkeleton(parser)
+          }
+        case Some(_) =>
+          parseSkeleton(parser)
+      }
+      if (times != null) times.parse += times.lap()
+      if (!parser.hasErrors) {
+        val tree = Vector(javaSource)
+
+        if (attachComments && degradationReason.isEmpty) {
+          val leftTokens = AstAnalyzer.attachHiddenTokens(tree, parser.getTokenCount, parser.getCollectedTokens)
+          if (!leftTokens.isEmpty) {
+            logger.warn(s"Unable to match ${leftTokens.size} tokens: \n${leftTokens}")
+          }
+          if (times != null) times.comments += times.lap()
+        }
+
+        walk(tree)
+        if (times != null) times.walk += times.lap()
       } else {
-        Iterable.empty[Token]
+        parser.getMessages.foreach(println)
       }
+    } finally parser.release()
+  }
 
-
-    // Add all other tokens as preceding tokens to the current node
-    val precedingTokens = currentTokens.drop(previousTokens.size)
-    node._2.addPreceding(precedingTokens)
-
-    val leftTokens = tokens.drop(currentTokens.size)
-    val leftNodes = nodes.tail
-    if (leftTokens.isEmpty || leftNodes.isEmpty) {
-
-      // There might be remaining comment-tokens at the end of a file. Add them as following to the last node, if their
-      // token-index is greater than the last nodes token index.
-      val remainingTokens = leftTokens.partition(t => t._1 > node._1)
-      node._2.addFollowing(remainingTokens._1.map(_._2))
-
-      // Return any tokes that did not match so far ... should always be empty!
-      remainingTokens._2.map(_._2).toVector
-
-    } else {
-      addHiddenTokens(Some(node._2), leftNodes, leftTokens)
-    }
+  private def parseSkeleton(parser: JavaSourceParser): EnhancedCommonTree = {
+    degrade(degradationReason.get)
+    parser.parseSkeleton()
   }
 }
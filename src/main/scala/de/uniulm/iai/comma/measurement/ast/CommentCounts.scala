@@ -0,0 +1,62 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.measurement.ast
+
+import de.uniulm.iai.comma.lib.ast.javasource.JavaLexer
+import de.uniulm.iai.comma.model.{Measure, Value}
+
+/**
+ * Numbers, lines and lengths of the line, block and javadoc comments attributed to a single declaration. Line
+ * comments always span a single line.
+ */
+final class CommentCounts {
+  private var lineCommentCount, blockCommentCount, blockCommentLines, javadocCount, javadocLines = 0
+  private var lineCommentLength, blockCommentLength, javadocLength = 0L
+
+  /** Count the comment at the given position of the given set. */
+  def add(comments: CommentSet, i: Int): Unit = comments.kind(i) match {
+    case JavaLexer.LINE_COMMENT =>
+      lineCommentCount += 1
+      lineCommentLength += comments.length(i)
+    case JavaLexer.BLOCK_COMMENT =>
+      blockCommentCount += 1
+      blockCommentLines += comments.lines(i)
+      blockCommentLength += comments.length(i)
+    case JavaLexer.JAVADOC_COMMENT =>
+      javadocCount += 1
+      javadocLines += comments.lines(i)
+      javadocLength += comments.length(i)
+    case _ => // not a comment
+  }
+
+  /**
+   * Return the counted values, also if no comment has been counted. Lines and length of the documentation only
+   * include line and block comments, no javadoc.
+   */
+  def measuredValues(artifact: Option[String]): Vector[Value] = Vector(
+    Value(artifact, Measure.LINE_COMMENT_COUNT, lineCommentCount),
+    Value(artifact, Measure.LINE_COMMENT_LENGTH, lineCommentLength),
+    Value(artifact, Measure.BLOCK_COMMENT_COUNT, blockCommentCount),
+    Value(artifact, Measure.BLOCK_COMMENT_LINES, blockCommentLines),
+    Value(artifact, Measure.BLOCK_COMMENT_LENGTH, blockCommentLength),
+    Value(artifact, Measure.JAVADOC_COUNT, javadocCount),
+    Value(artifact, Measure.JAVADOC_LINES, javadocLines),
+    Value(artifact, Measure.JAVADOC_LENGTH, javadocLength),
+    Value(artifact, Measure.DOC_LINES, lineCommentCount + blockCommentLines),
+    Value(artifact, Measure.DOC_LENGTH, lineCommentLength + blockCommentLength))
+}
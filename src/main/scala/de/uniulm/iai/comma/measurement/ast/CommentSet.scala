@@ -0,0 +1,155 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.measurement.ast
+
+import de.uniulm.iai.comma.lib.ast.javasource.JavaLexer._
+import org.antlr.runtime.{CommonToken, Token}
+
+object CommentSet {
+
+  /**
+   * Return the comments of a source, each anchored to a line. A comment on the line of the code preceding it is
+   * anchored to its own line, other comments are anchored to the line of the code following them, like the comments
+   * attached to the nodes by [[AstAnalyzer.attachHiddenTokens]]. Modifiers and annotations are skipped, a declaration
+   * only spans the lines from its keyword or name on. Hence, the anchors ascend and a comment preceding a declaration
+   * is anchored within the line span of that declaration. Comments behind the last code are anchored to the line of
+   * that code, like those attached to the last node. The code following a run of comments is looked up once for the
+   * whole run.
+   *
+   * @param tokens
+   *    All tokens of the source, including the comments and the end of file.
+   * @param comments
+   *    The comments, ordered by their token index.
+   * @param endLine
+   *    The last line of the comment at the given position.
+   */
+  def of(tokens: java.util.List[_ <: Token], comments: java.util.List[Token], endLine: Int => Int): CommentSet = {
+    val set = new CommentSet(comments.size)
+    var previousLine = -1
+    var nextIndex = -1
+    var nextLine = -1
+    var i = 0
+    while (i < comments.size) {
+      val comment = comments.get(i)
+      val index = comment.getTokenIndex
+      if (index > 0 && tokens.get(index - 1).getChannel == Token.DEFAULT_CHANNEL) {
+        previousLine = tokens.get(index - 1).getLine
+      }
+      if (index > nextIndex) {
+        nextIndex = code(tokens, index + 1)
+        val declaration = skipModifiers(tokens, nextIndex)
+        nextLine = if (declaration < tokens.size && tokens.get(declaration).getType != Token.EOF) {
+          tokens.get(declaration).getLine
+        } else {
+          val last = previousCode(tokens, index - 1)
+          if (last >= 0) tokens.get(last).getLine else comment.getLine
+        }
+      }
+      val anchor = if (comment.getLine == previousLine) comment.getLine else nextLine
+      set.add(comment.getType, anchor, endLine(i) - comment.getLine + 1, length(comment))
+      i += 1
+    }
+    set
+  }
+
+  /** Return the index of the first token of the default channel from the given index on. */
+  private def code(tokens: java.util.List[_ <: Token], from: Int): Int = {
+    var i = from
+    while (i < tokens.size && tokens.get(i).getChannel != Token.DEFAULT_CHANNEL) i += 1
+    i
+  }
+
+  /** Return the index of the last token of the default channel up to the given index, -1 if there is none. */
+  private def previousCode(tokens: java.util.List[_ <: Token], from: Int): Int = {
+    var i = from
+    while (i >= 0 && tokens.get(i).getChannel != Token.DEFAULT_CHANNEL) i -= 1
+    i
+  }
+
+  /** Return the index of the first token behind the modifiers and annotations starting at the given index. */
+  private def skipModifiers(tokens: java.util.List[_ <: Token], from: Int): Int = {
+    def typeAt(i: Int) = if (i < tokens.size) tokens.get(i).getType else Token.EOF
+    var i = from
+    var modifiers = true
+    while (modifiers) typeAt(i) match {
+      case PUBLIC | PROTECTED | PRIVATE | STATIC | FINAL | ABSTRACT | NATIVE | SYNCHRONIZED | TRANSIENT | VOLATILE |
+           STRICTFP =>
+        i = code(tokens, i + 1)
+      case AT if typeAt(code(tokens, i + 1)) == IDENT =>
+        // Qualified name and arguments of the annotation
+        i = code(tokens, code(tokens, i + 1) + 1)
+        while (typeAt(i) == DOT) i = code(tokens, code(tokens, i + 1) + 1)
+        if (typeAt(i) == LPAREN) {
+          var depth = 0
+          do {
+            typeAt(i) match {
+              case LPAREN => depth += 1
+              case RPAREN => depth -= 1
+              case _ =>
+            }
+            i = code(tokens, i + 1)
+          } while (depth > 0 && i < tokens.size)
+        }
+      case _ =>
+        modifiers = false
+    }
+    i
+  }
+
+  /** Return the length of the given token, without copying its text from the source if possible. */
+  private def length(token: Token): Int = token match {
+    case t: CommonToken => t.getStopIndex - t.getStartIndex + 1
+    case t => t.getText.length
+  }
+}
+
+/**
+ * Kind, anchor line, lines and length of the comments of a source, in primitive arrays ordered by the anchor line.
+ * Comments are attributed to the innermost declaration whose line span contains their anchor.
+ */
+final class CommentSet private (capacity: Int) {
+  private val kinds = new Array[Int](capacity)
+  private val anchors = new Array[Int](capacity)
+  private val lineCounts = new Array[Int](capacity)
+  private val lengths = new Array[Int](capacity)
+
+  private var count = 0
+
+  /** The number of comments. */
+  def size: Int = count
+
+  /** The token type of the comment at the given position. */
+  def kind(i: Int): Int = kinds(i)
+
+  /** The line the comment at the given position is anchored to. */
+  def anchor(i: Int): Int = anchors(i)
+
+  /** The number of lines of the comment at the given position. */
+  def lines(i: Int): Int = lineCounts(i)
+
+  /** The number of characters of the comment at the given position. */
+  def length(i: Int): Int = lengths(i)
+
+  private def add(kind: Int, anchor: Int, lines: Int, length: Int): Unit = {
+    kinds(count) = kind
+    anchors(count) = anchor
+    lineCounts(count) = lines
+    lengths(count) = length
+    count += 1
+  }
+}
@@ -18,7 +18,6 @@
 
 package de.uniulm.iai.comma.measurement.ast
 
-import com.buschmais.jqassistant.core.store.api.model.Descriptor
 import de.uniulm.iai.comma.lib.ast.javasource.{EnhancedCommonTree, JavaLexer}
 import de.uniulm.iai.comma.model.{Value, Measure}
 
@@ -37,10 +36,12 @@ object CommentVisitor extends TreeVisitorFactory {
     Measure.BLOCK_COMMENT_LENGTH
   )
 
-  override def createVisitor(descriptor: Descriptor, artifact: Option[String]): CommentVisitor = {
+  override def createVisitor(artifact: Option[String]): CommentVisitor = {
     new CommentVisitor(artifact)
   }
 
+  override def needsComments = true
+
 }
 
 class CommentVisitor(artifact: Option[String]) extends TreeVisitor {
@@ -78,6 +79,8 @@ class CommentVisitor(artifact: Option[String]) extends TreeVisitor {
   def javadocCommentLength = _javadocCommentLength
 
 
+  override def needsComments = true
+
   def visit(node: EnhancedCommonTree) = {
     (node.getPrecedingComments ++ node.getFollowingComments).foreach { t =>
       t.getType match {
@@ -17,25 +17,26 @@
  */
 package de.uniulm.iai.comma.measurement.ast
 
-import com.buschmais.jqassistant.core.store.api.model.Descriptor
 import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree
 import de.uniulm.iai.comma.lib.ast.javasource.JavaParser._
 import de.uniulm.iai.comma.model.{Value, Measure}
-import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.CyclomaticComplexityDescriptor
+
+import scala.collection.immutable.BitSet
 
 object CyclomaticComplexityVisitor extends TreeVisitorFactory {
 
   override def measures() = Vector(Measure.CCN)
 
-  override def createVisitor(descriptor: Descriptor, artifact: Option[String]):
-      CyclomaticComplexityVisitor = {
-    new CyclomaticComplexityVisitor(descriptor.asInstanceOf[CyclomaticComplexityDescriptor], artifact)
+  override def createVisitor(artifact: Option[String]): CyclomaticComplexityVisitor = {
+    new CyclomaticComplexityVisitor(artifact)
   }
 
+  override val visitedNodeTypes = Some(BitSet(IF, FOR, FOR_EACH, WHILE, DO, CASE, CATCH, LOGICAL_AND, LOGICAL_OR,
+    QUESTION))
+
 }
 
-class CyclomaticComplexityVisitor(descriptor: CyclomaticComplexityDescriptor, artifact: Option[String])
-      extends TreeVisitor {
+class CyclomaticComplexityVisitor(artifact: Option[String]) extends TreeVisitor {
 
   private var counter: Long = 1
   def ccn = counter
@@ -60,7 +61,6 @@ class CyclomaticComplexityVisitor(descriptor: CyclomaticComplexityDescriptor, ar
   }
 
   override def measuredValues() = {
-    descriptor.setCyclomaticComplexityNumber(ccn)
     Vector(Value(artifact, Measure.CCN, ccn))
   }
 
@@ -17,53 +17,41 @@
  */
 package de.uniulm.iai.comma.measurement.ast
 
-import com.buschmais.jqassistant.core.store.api.model.Descriptor
 import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree
 import de.uniulm.iai.comma.lib.ast.javasource.JavaParser._
 import de.uniulm.iai.comma.model.{Measure, Value}
 
+import scala.collection.immutable.BitSet
 import scala.annotation.tailrec
 import scala.collection.JavaConversions._
 
 object FanOutComplexityVisitor extends TreeVisitorFactory {
 
-  override def measures() = Vector()
+  override def measures() = Vector(Measure.FANOUT)
+
+  /** Primitives, their wrappers and other classes every type uses, which do not count as used classes. */
+  val IgnoredClasses = Set("boolean", "byte", "char", "double", "float", "int", "long", "short", "void", "Boolean",
+    "Byte", "Character", "Double", "Float", "Integer", "Long", "Object", "Short", "String", "Void", "Exception",
+    "RuntimeException", "Throwable")
+
+  /** Tells if the given class counts as used class, i.e. it is neither ignored nor part of `java.lang`. */
+  def isSignificant(className: String): Boolean = {
+    (!className.isEmpty) && !IgnoredClasses.contains(className) && !className.startsWith("java.lang")
+  }
 
   def apply(artifact: Option[String] = None) = {
-    val ignoredClassesBuilder = Set.newBuilder[String]
-    ignoredClassesBuilder += "boolean"
-    ignoredClassesBuilder += "byte"
-    ignoredClassesBuilder += "char"
-    ignoredClassesBuilder += "double"
-    ignoredClassesBuilder += "float"
-    ignoredClassesBuilder += "int"
-    ignoredClassesBuilder += "long"
-    ignoredClassesBuilder += "short"
-    ignoredClassesBuilder += "void"
-    ignoredClassesBuilder += "Boolean"
-    ignoredClassesBuilder += "Byte"
-    ignoredClassesBuilder += "Character"
-    ignoredClassesBuilder += "Double"
-    ignoredClassesBuilder += "Float"
-    ignoredClassesBuilder += "Integer"
-    ignoredClassesBuilder += "Long"
-    ignoredClassesBuilder += "Object"
-    ignoredClassesBuilder += "Short"
-    ignoredClassesBuilder += "String"
-    ignoredClassesBuilder += "Void"
-    ignoredClassesBuilder += "Exception"
-    ignoredClassesBuilder += "RuntimeException"
-    ignoredClassesBuilder += "Throwable"
-    new FanOutComplexityVisitor(artifact, ignoredClassesBuilder.result())
+    new FanOutComplexityVisitor(artifact)
   }
 
-  def createVisitor(descriptor: Descriptor, artifact: Option[String]): FanOutComplexityVisitor = {
+  def createVisitor(artifact: Option[String]): FanOutComplexityVisitor = {
     apply(artifact)
   }
+
+  override val visitedNodeTypes = Some(BitSet(TYPE, THROWS_CLAUSE, STATIC_ARRAY_CREATOR, CLASS_CONSTRUCTOR_CALL,
+    ANONYMOUS_CLASS_CONSTRUCTOR_CALL))
 }
 
-class FanOutComplexityVisitor(artifact: Option[String], ignoredClasses: Set[String])
-    extends TreeVisitor {
+class FanOutComplexityVisitor(artifact: Option[String]) extends TreeVisitor {
 
   val foundClasses = Set.newBuilder[String]
 
@@ -89,11 +77,7 @@ class FanOutComplexityVisitor(artifact: Option[String], ignoredClasses: Set[Stri
       Unit = {
 
     val classes = if (node.getChildren != null) evaluator(node.getChildren.toIndexedSeq, "") else ""
-    classes.split(',').foreach( c => if (isSignificant(c)) foundClasses += c)
-  }
-
-  private def isSignificant(className: String): Boolean = {
-    (!className.isEmpty) && !ignoredClasses.contains(className) && !className.startsWith("java.lang")
+    classes.split(',').foreach( c => if (FanOutComplexityVisitor.isSignificant(c)) foundClasses += c)
   }
 
   @tailrec
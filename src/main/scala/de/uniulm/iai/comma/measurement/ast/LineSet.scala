@@ -0,0 +1,91 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.measurement.ast
+
+import org.antlr.runtime.Token
+
+object LineSet {
+
+  /**
+   * Return the lines of the given tokens carrying code, i.e. tokens of the default channel. Comments and whitespace
+   * do not count, neither does the end of file, which only tells the number of lines of the source.
+   */
+  def of(tokens: java.util.List[_ <: Token]): LineSet = {
+    val lines = new LineSet
+    val size = tokens.size
+    var i = 0
+    while (i < size) {
+      val token = tokens.get(i)
+      if (token.getType == Token.EOF) {
+        // The end of file follows the last line break, so it is not on a line of its own
+        lines.total = if (token.getCharPositionInLine == 0) token.getLine - 1 else token.getLine
+      } else if (token.getChannel == Token.DEFAULT_CHANNEL) {
+        lines.mark(token.getLine)
+      }
+      i += 1
+    }
+    lines
+  }
+}
+
+/**
+ * The lines of a source carrying code, one bit per line. Marking and counting lines does not box them, so the lines
+ * of code of all declarations of a source are counted from a single set.
+ */
+final class LineSet {
+  private var words = new Array[Long](16)
+
+  private var total = 0
+
+  /** The number of lines of the source, including blank lines and comments. */
+  def lines: Int = total
+
+  /** Mark the given line, starting at 1. */
+  def mark(line: Int): Unit = {
+    val word = line >>> 6
+    if (word >= words.length) words = java.util.Arrays.copyOf(words, math.max(words.length * 2, word + 1))
+    words(word) |= 1L << line
+    if (line > total) total = line
+  }
+
+  /** Return the number of marked lines from `first` to `last`, both inclusive. */
+  def count(first: Int, last: Int): Int = {
+    val from = math.max(first, 0)
+    val to = math.min(last, (words.length << 6) - 1)
+    if (from > to) {
+      0
+    } else {
+      val firstWord = from >>> 6
+      val lastWord = to >>> 6
+      val firstMask = -1L << from
+      val lastMask = -1L >>> (63 - (to & 63))
+      if (firstWord == lastWord) {
+        java.lang.Long.bitCount(words(firstWord) & firstMask & lastMask)
+      } else {
+        var n = java.lang.Long.bitCount(words(firstWord) & firstMask) +
+          java.lang.Long.bitCount(words(lastWord) & lastMask)
+        var word = firstWord + 1
+        while (word < lastWord) {
+          n += java.lang.Long.bitCount(words(word))
+          word += 1
+        }
+        n
+      }
+    }
+  }
+}
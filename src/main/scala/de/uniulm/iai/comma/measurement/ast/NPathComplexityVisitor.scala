@@ -18,29 +18,38 @@
 
 package de.uniulm.iai.comma.measurement.ast
 
-import com.buschmais.jqassistant.core.store.api.model.Descriptor
-import de.uniulm.iai.comma.lib.ast.TreeWrapper._
 import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree
 import de.uniulm.iai.comma.lib.ast.javasource.JavaParser._
 import de.uniulm.iai.comma.model.{Value, Measure}
-import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.NPathComplexityDescriptor
 
-import scala.collection.JavaConversions._
+import scala.collection.immutable.BitSet
 
 object NPathComplexityVisitor extends TreeVisitorFactory {
 
   def measures(): Iterable[Measure] = Vector(Measure.NPATH)
 
-  def createVisitor(descriptor: Descriptor, artifact: Option[String]): NPathComplexityVisitor = {
-    new NPathComplexityVisitor(descriptor.asInstanceOf[NPathComplexityDescriptor], artifact)
+  def createVisitor(artifact: Option[String]): NPathComplexityVisitor = {
+    new NPathComplexityVisitor(artifact)
   }
+
+  /** Only declarations are visited, the complexity of their body is computed from the subtree. */
+  override val visitedNodeTypes = Some(BitSet(VOID_METHOD_DECL, FUNCTION_METHOD_DECL, ANNOTATION_METHOD_DECL,
+    CONSTRUCTOR_DECL))
 }
 
-class NPathComplexityVisitor(descriptor: NPathComplexityDescriptor, artifact: Option[String] = None)
-      extends TreeVisitor {
+/**
+ * Computes the NPath complexity of a method or constructor declaration.
+ *
+ * The declaration subtree is evaluated bottom-up in a single pass, with the pending nodes kept on an array based
+ * stack instead of the call stack. Intermediate values saturate at `maxThreshold + 1`. Saturation never changes a
+ * value up to the threshold, because each value is at least as large as every value it is composed of. Once the
+ * method block alone exceeds the threshold, the remaining subtree is skipped.
+ */
+class NPathComplexityVisitor(artifact: Option[String] = None) extends TreeVisitor {
 
   val maxThreshold = 16000
-  private var npath: BigInt = 0
+  private val limit: Long = maxThreshold + 1
+  private var npath: Long = 0
 
   /** Visitor kicks in on method and constructor declarations. It ignores all other tokens. */
   override def visit(node: EnhancedCommonTree) = node.getType match {
@@ -48,12 +57,7 @@ class NPathComplexityVisitor(descriptor: NPathComplexityDescriptor, artifact: Op
        | FUNCTION_METHOD_DECL
        | ANNOTATION_METHOD_DECL
        | CONSTRUCTOR_DECL
-      => {
-        npath = node.findChildNode(BLOCK_SCOPE) match {
-          case Some(block) => complexityMultipleOf(block, 1)
-          case None => 1
-        }
-      }
+      => npath = declarationComplexity(node)
     case _ => // ignore
   }
 
@@ -61,278 +65,256 @@ class NPathComplexityVisitor(descriptor: NPathComplexityDescriptor, artifact: Op
   /** Returns the overall npath value for the visited construct (depends where the visitor is attached). */
   override def measuredValues(): Iterable[Value] = {
     if (npath > maxThreshold) {
-      descriptor.setNPathComplexity(-1l)
       Vector(
         Value(artifact, Measure.NPATH_MAX_EXCEEDED, 1)
       )
     } else {
-      descriptor.setNPathComplexity(npath.toLong)
       Vector(
-        Value(artifact, Measure.NPATH, npath.toLong)
+        Value(artifact, Measure.NPATH, npath)
       )
     }
   }
 
 
-  /** NPath for given node based on multiply of all children npaths. */
-  private def complexityMultipleOf(node: EnhancedCommonTree, npathStart: Long = 1): Long = {
-    if (node.getChildCount > 0) {
-      node.getChildren.foldLeft(npathStart) { (npath, c) =>
-        val res = visitNode(c)
-        (if(npath == 0) 1 else npath) * (if (res == 0) 1 else res)
-      }
-    } else npathStart
-  }
-
+  // Frames of the nodes currently evaluated, the root declaration is at index 0. Besides the sum and the product
+  // of all child npaths, each frame has three slots for values of specific children, depending on its node type.
+  private var nodes = new Array[EnhancedCommonTree](32)
+  private var types = new Array[Int](32)
+  private var nextChild = new Array[Int](32)
+  private var sums = new Array[Long](32)
+  private var products = new Array[Long](32)
+  private var first = new Array[Long](32)
+  private var second = new Array[Long](32)
+  private var third = new Array[Long](32)
+  private var seen = new Array[Int](32)
+  private var top = -1
+
+  // Flags of `seen`, only the first child of a type is considered for the slots
+  private val SeenElse = 1
+  private val SeenExpression = 2
+  private val SeenForInit = 4
+  private val SeenForCondition = 8
+  private val SeenForUpdate = 16
+  private val SeenCatchClauses = 32
+  private val SeenFinally = 64
+  private val SeenSwitchBlock = 128
+  private val SeenDefault = 256
+  private val SeenBlock = 512
+
+
+  /** NPath of a declaration is the npath of its block, or 1 if it has none. */
+  private def declarationComplexity(declaration: EnhancedCommonTree): Long = {
+    top = -1
+    push(declaration)
+    while (true) {
+      val i = top
+      if (nextChild(i) < nodes(i).getChildCount) {
+        nextChild(i) += 1
+        push(nodes(i).getChild(nextChild(i) - 1))
+      } else {
+        val npath = complexity(i)
+        val sum = sums(i)
+        val product = if (nextChild(i) > 0) products(i) else 1
+        nodes(i) = null
+        top -= 1
+        if (top < 0) {
+          return first(0)
+        }
+        addChild(top, types(i), nextChild(top) - 1, npath, sum, product, first(i), second(i), nextChild(i))
 
-  /** NPath for given node based on sum of all children npaths. */
-  private def complexitySumOf(node: EnhancedCommonTree, npathStart: Long = 0): Long = {
-    if (node.getChildCount > 0) {
-      node.getChildren.foldLeft(npathStart) { (npath, c) =>
-        npath + visitNode(c)
+        // The method block is a product of positive values, it exceeds the threshold for good
+        if (top == 1 && types(1) == BLOCK_SCOPE && products(1) >= limit) {
+          return limit
+        }
       }
-    } else npathStart
+    }
+    throw new IllegalStateException("unreachable")
   }
 
 
-  /**
-   * This method delegates child visits to the appropriate token-handlers to calculate
-   * the statement specific values (if-else, for, switch ...). All method-call tokens
-   * return 1 immediately. If a logical and or a logical or is visited, it is counted
-   * as one and summed up with all of its childs.
-   *
-   * All other tokens are pushed to the complexitySumOf-method to handle
-   * child-statements.
-   *
-   * @param node
-   * @return npath of visited node
-   */
-  private def visitNode(node: EnhancedCommonTree): Long = node.getType match {
-    case IF       => visitIfStatement(node)
-    case FOR      => visitForStatement(node)
-    case FOR_EACH => visitForEachStatement(node)
-    case WHILE    => visitWhileStatement(node)
-    case DO       => visitDoStatement(node)
-    case QUESTION => visitConditionalExpression(node)
-    case TRY      => visitTryStatement(node)
-    case SWITCH   => visitSwitchStatement(node)
-    case RETURN   => visitReturnStatement(node)
-
-    case METHOD_CALL
-         | CLASS_CONSTRUCTOR_CALL
-         | THIS_CONSTRUCTOR_CALL
-         | SUPER_CONSTRUCTOR_CALL
-         | BREAK
+  private def push(node: EnhancedCommonTree): Unit = {
+    if (top + 1 == nodes.length) grow()
+    top += 1
+    val nodeType = node.getType
+    nodes(top) = node
+    types(top) = nodeType
+    nextChild(top) = 0
+    sums(top) = 0
+    products(top) = 1
+    first(top) = nodeType match {
+      case RETURN
+         | VOID_METHOD_DECL
+         | FUNCTION_METHOD_DECL
+         | ANNOTATION_METHOD_DECL
+         | CONSTRUCTOR_DECL
          => 1
-
-    case LOGICAL_AND
-         | LOGICAL_OR
-         => complexitySumOf(node, 1)
-
-    case BLOCK_SCOPE => complexityMultipleOf(node, 0)
-
-    case _ => complexitySumOf(node)
+      case _ => 0
+    }
+    second(top) = if (nodeType == IF) 1 else 0
+    third(top) = 0
+    seen(top) = 0
   }
 
 
-  /**
-   * NPath of if-statements and if-else-statements is implemented as outlined in the original
-   * paper. Both cases are handled by this method. First the if-range is calculated, then the
-   * else-range (or 1 if there is no else) and then the if-expression is added.
-   *
-   * @param node
-   * @return npath of if and if-else constructs
-   */
-  private def visitIfStatement(node: EnhancedCommonTree): Long = {
-
-    // Calculate the if-range. First Child is the expression, second child the range to consider.
-    val ifRange = visitNode(node.childAt(1).get)
-
-    // The else path is also a child, so the if-npath includes the else-npath if an else
-    // is defined -- if not, 1 is added.
-    val elseRange = node.findChildNode(ELSE) match {
-      case Some(elseNode) => visitNode(elseNode.childAt(0).get)
-      case None => 1
-    }
+  private def grow(): Unit = {
+    val size = nodes.length * 2
+    nodes = java.util.Arrays.copyOf(nodes, size)
+    types = java.util.Arrays.copyOf(types, size)
+    nextChild = java.util.Arrays.copyOf(nextChild, size)
+    sums = java.util.Arrays.copyOf(sums, size)
+    products = java.util.Arrays.copyOf(products, size)
+    first = java.util.Arrays.copyOf(first, size)
+    second = java.util.Arrays.copyOf(second, size)
+    third = java.util.Arrays.copyOf(third, size)
+    seen = java.util.Arrays.copyOf(seen, size)
+  }
 
-    // Third, calculate the if-expression complexity.
-    val expr = sumExpressionComplexity(node.findChildNode(PARENTESIZED_EXPR).get)
 
-    ifRange + elseRange + expr
+  /** Return true for the first child of a type, identified by the given `seen` flag. */
+  private def firstSeen(i: Int, flag: Int): Boolean = {
+    val firstOne = (seen(i) & flag) == 0
+    seen(i) |= flag
+    firstOne
   }
 
 
   /**
-   * NPath of while-loop is implemented as outlined in the original paper.
+   * Add a completed child to the frame at index `i`. Each child adds its npath to the sum and multiplies it to the
+   * product of the frame, npaths of 0 count as 1 for the product. Statements additionally remember the values
+   * of the children they are composed of:
    *
-   * NP(while) = NP(while-range) + NP(expr) + 1
-   *
-   * @param node
-   * @return npath of while-loop
+   *  - if: npath of the if-range, npath of the else-range (or 1) and the sum of the expression
+   *  - while, do: npath of the range and the sum of the expression
+   *  - for: npath of the range and the sums of the init-, condition- and update-expression
+   *  - for-each: npath of the range and the sum of the iterator-creating expression
+   *  - try: npath of the try-range, the number of catch clauses and the product of the finally-range
+   *  - switch: the sum of the expression, the product of the default-range and the sum of the case-range products
+   *  - return: the product of the expression (or 1)
+   *  - declarations: the product of the block (or 1)
    */
-  private def visitWhileStatement(node: EnhancedCommonTree): Long = {
-    // Calculate the while-range. First child is the expression, second child the range to consider.
-    val whileRange = visitNode(node.childAt(1).get)
+  private def addChild(i: Int, childType: Int, childIndex: Int, npath: Long, sum: Long, product: Long,
+                       childFirst: Long, childSecond: Long, childCount: Int): Unit = {
+    sums(i) = add(sums(i), npath)
+    products(i) = multiply(products(i), if (npath == 0) 1 else npath)
+
+    types(i) match {
+      case IF =>
+        if (childIndex == 1) first(i) = npath
+        if (childType == ELSE && firstSeen(i, SeenElse)) second(i) = childFirst
+        if (childType == PARENTESIZED_EXPR && firstSeen(i, SeenExpression)) third(i) = sum
+
+      case ELSE =>
+        if (childIndex == 0) first(i) = npath
+
+      case WHILE =>
+        if (childIndex == 1) first(i) = npath
+        if (childType == PARENTESIZED_EXPR && firstSeen(i, SeenExpression)) third(i) = sum
+
+      case DO =>
+        if (childIndex == 0) first(i) = npath
+        if (childType == PARENTESIZED_EXPR && firstSeen(i, SeenExpression)) third(i) = sum
+
+      case FOR =>
+        if (childIndex == 3) first(i) = npath
+        if ((childType == FOR_INIT && firstSeen(i, SeenForInit))
+            || (childType == FOR_CONDITION && firstSeen(i, SeenForCondition))
+            || (childType == FOR_UPDATE && firstSeen(i, SeenForUpdate))) {
+          second(i) = add(second(i), sum)
+        }
 
-    // Second, calculate the while-expression complexity.
-    val expr = sumExpressionComplexity(node.findChildNode(PARENTESIZED_EXPR).get)
+      case FOR_EACH =>
+        if (childIndex == 4) first(i) = npath
+        if (childIndex == 3) second(i) = sum
 
-    whileRange + expr + 1
-  }
+      case TRY =>
+        if (childIndex == 0) first(i) = npath
+        if (childType == CATCH_CLAUSE_LIST && firstSeen(i, SeenCatchClauses)) second(i) = childCount
+        if (childType == FINALLY && firstSeen(i, SeenFinally)) third(i) = product
 
+      case SWITCH =>
+        if (childType == PARENTESIZED_EXPR && firstSeen(i, SeenExpression)) third(i) = sum
+        if (childType == SWITCH_BLOCK_LABEL_LIST && firstSeen(i, SeenSwitchBlock)) {
+          first(i) = childFirst
+          second(i) = childSecond
+        }
 
-  /**
-   * NPath of do-while-loops is implemented as outlined in the original paper.
-   *
-   * NP(do) = NP(do-range) + NP(expr) + 1
-   *
-   * @param node
-   * @return npath of do-while-loop
-   */
-  private def visitDoStatement(node: EnhancedCommonTree): Long = {
-    // Calculate the do-range. First child is the expression, second child the range to consider.
-    val doRange = visitNode(node.childAt(0).get)
+      case SWITCH_BLOCK_LABEL_LIST =>
+        if (childType == DEFAULT && firstSeen(i, SeenDefault)) first(i) = product
+        if (childType == CASE) second(i) = add(second(i), product)
+
+      case RETURN =>
+        if (childType == EXPR && firstSeen(i, SeenExpression)) first(i) = product
 
-    // Second, calculate the while-expression complexity.
-    val expr = sumExpressionComplexity(node.findChildNode(PARENTESIZED_EXPR).get)
+      case VOID_METHOD_DECL
+         | FUNCTION_METHOD_DECL
+         | ANNOTATION_METHOD_DECL
+         | CONSTRUCTOR_DECL =>
+        if (childType == BLOCK_SCOPE && firstSeen(i, SeenBlock)) first(i) = product
 
-    doRange + expr + 1
+      case _ =>
+    }
   }
 
 
   /**
-   * NPath of for-loops is implemented as outlined in the original paper.
+   * NPath of the completed frame at index `i`. Statements are handled as outlined in the original paper:
    *
+   * NP(if) = NP(if-range) + NP(else-range) + NP(expr)
+   * NP(while) = NP(while-range) + NP(expr) + 1
+   * NP(do) = NP(do-range) + NP(expr) + 1
    * NP(for) = NP(for-range) + NP(init-expr) + NP(condition-expr) + NP(update-expr) + 1
+   * NP(switch) = NP(expr) + NP(default-range) + SUM(NP(case-ranges))
+   * NP(?) = NP(epxr1) + NP(expr2) + NP(expr3) + 2
    *
-   * @param node
-   * @return npath of for-loop
-   */
-  private def visitForStatement(node: EnhancedCommonTree): Long = {
-    // Calculate for-range
-    val forRange = visitNode(node.childAt(3).get)
-
-    // Calculate for-init-expression
-    val forInit = node.findChildNode(FOR_INIT).fold(0L)(sumExpressionComplexity(_))
-
-    // Calculate for-condition-expression
-    val forCond = node.findChildNode(FOR_CONDITION).fold(0L)(sumExpressionComplexity(_))
-
-    // Calculate for-update-expression
-    val forUpdate = node.findChildNode(FOR_UPDATE).fold(0L)(sumExpressionComplexity(_))
-
-    forRange + forInit + forCond + forUpdate + 1
-  }
-
-
-  /**
-   * The for-each statement is no c-structure, so the npath calculation is not
-   * described in the original paper. Basically, its a for-loop and could be written as
-   * <code>for (int i = 0; i < iterator.length(); i++) { ... }</code>. Given that, it is
-   * obvious, that only the iterator-creating part of the for-loop might add additional
-   * complexity. There is a hidden method-call to determine the iterator length, but since
-   * it's hidden, it does not add additional complexity and should not be counted.
+   * The for-each statement is no c-structure, so the npath calculation is not described in the original paper.
+   * Basically, its a for-loop and could be written as `for (int i = 0; i < iterator.length(); i++) { ... }`.
+   * Given that, only the iterator-creating part might add additional complexity. There is a hidden method-call to
+   * determine the iterator length, but since it's hidden, it does not add additional complexity.
    *
    * NP(foreach) = NP(foreach-range) + NP(iterator-expr) + 1
    *
-   * @param node
-   * @return npath of foreach
-   */
-  private def visitForEachStatement(node: EnhancedCommonTree): Long = {
-    // Calculate for-each-range
-    val forEachRange = visitNode(node.childAt(4).get)
-
-    // Calculate iterator-creating expression
-    val expr = complexitySumOf(node.childAt(3).get)
-
-    forEachRange + expr + 1
-  }
-
-
-  /**
-   * The npath for a return should be one if there is no following expression or
-   * the npath of the following expression (at least 1).
-   *
-   * @param node
-   * @return npath of a return-statement
-   */
-  private def visitReturnStatement(node: EnhancedCommonTree): Long = {
-    node.findChildNode(EXPR).fold(1L)(complexityMultipleOf(_))
-  }
-
-
-  /**
-   * NPath for switch statement is calculated straightforward as outlined in the
-   * original paper.
+   * The original paper did not address try-catch-finally blocks. Based on the principles outlined for other
+   * blocks, as well as the PMD and Checkstyle NPath implementations, the try-range is counted once more for each
+   * catch clause.
    *
-   * NP(switch) = NP(expr) + NP(default-range) + SUM(NP(case-ranges))
+   * NP(try-catch-finally) = NP(try-range) + NP(finally-range) + SUM(NP(catch-ranges))
    *
-   * @param node
-   * @return npath of switch-statement
+   * A return is one if there is no following expression, method calls and breaks are always one. Logical and
+   * and logical or count as one plus their operands, blocks multiply the npaths of their statements. All other
+   * tokens sum up the npaths of their children.
    */
-  private def visitSwitchStatement(node: EnhancedCommonTree): Long = {
-    val expr = sumExpressionComplexity(node.findChildNode(PARENTESIZED_EXPR).get)
-    val switchBlock = node.findChildNode(SWITCH_BLOCK_LABEL_LIST).get
-    val defaultRange = switchBlock.findChildNode(DEFAULT).fold(0L)(complexityMultipleOf(_))
-    val caseRanges = switchBlock.getChildren.foldLeft(1L)((cur, c) => c.getType match {
-      case CASE => cur + complexityMultipleOf(c)
-      case _ => cur
-    })
-
-    expr + defaultRange + caseRanges
-  }
+  private def complexity(i: Int): Long = types(i) match {
+    case IF       => add(add(first(i), second(i)), third(i))
+    case WHILE
+       | DO       => add(add(first(i), third(i)), 1)
+    case FOR
+       | FOR_EACH => add(add(first(i), second(i)), 1)
+    case QUESTION => add(sums(i), 2)
+    case TRY      => add(add(first(i), multiply(first(i), second(i))), third(i))
+    case SWITCH   => add(add(add(third(i), first(i)), second(i)), 1)
+    case RETURN   => first(i)
 
+    case METHOD_CALL
+         | CLASS_CONSTRUCTOR_CALL
+         | THIS_CONSTRUCTOR_CALL
+         | SUPER_CONSTRUCTOR_CALL
+         | BREAK
+         => 1
 
-  /**
-   * The original paper did not address try-catch-finally blocks. Based on the principles
-   * outlined for other blocks, as well as the PMD and Checkstyle NPath implementations,
-   * this method will calculate the complexity of the try-range, the finally-range and
-   * similar to a switch for all catch-ranges and sum them up.
-   *
-   * So in terms of the original paper this would be:
-   * NP(try-catch-finally) = NP(try-range) + NP(finally-range) + SUM(NP(catch-ranges)
-   *
-   * @param node
-   * @return npath of try-catch-finally statement
-   */
-  private def visitTryStatement(node: EnhancedCommonTree): Long = {
-    val tryRange = visitNode(node.childAt(0).get)
+    case LOGICAL_AND
+         | LOGICAL_OR
+         => add(sums(i), 1)
 
-    val catchRanges = node.findChildNode(CATCH_CLAUSE_LIST).fold(0L){ c =>
-      c.getChildren.foldLeft(0L) { (cur, catchNode) =>
-        cur + visitNode(node.childAt(0).get)
-      }
-    }
-    val finallyRange = node.findChildNode(FINALLY).fold(0L)(complexityMultipleOf(_))
+    case BLOCK_SCOPE => if (nextChild(i) > 0) products(i) else 0
 
-    tryRange + finallyRange + catchRanges
+    case _ => sums(i)
   }
 
 
-  /**
-   * NPath for a conditional expression (tenary-operator) is the sum of all three
-   * enclosed expressions plus 2. Hence, it is possible to delegate computation to
-   * the complexitySumOf-Method.
-   *
-   * NP(?) = NP(epxr1) + NP(expr2) + NP(expr3) + 2
-   *
-   * @param node
-   * @return npath of conditional expression
-   */
-  private def visitConditionalExpression(node: EnhancedCommonTree): Long = {
-    complexitySumOf(node) + 2
-  }
+  /** Saturating addition of npath values, which are never negative. */
+  private def add(a: Long, b: Long): Long = math.min(a + b, limit)
 
 
-  /**
-   * Calculate the boolean complexity of the given expression. In fact this is just delegating
-   * to the complexitySumOf-Method. Boolean expressions might include function-calls, so
-   * we have to make sure those are evaluated as well.
-   *
-   * @param node
-   * @return npath of expression
-   */
-  private def sumExpressionComplexity(node: EnhancedCommonTree): Long = {
-    complexitySumOf(node)
-  }
+  /** Saturating multiplication of npath values, which are never negative. */
+  private def multiply(a: Long, b: Long): Long = math.min(a * math.min(b, limit), limit)
 }
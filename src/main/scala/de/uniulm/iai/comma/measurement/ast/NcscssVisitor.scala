@@ -17,24 +17,32 @@
  */
 package de.uniulm.iai.comma.measurement.ast
 
-import com.buschmais.jqassistant.core.store.api.model.Descriptor
 import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree
 import de.uniulm.iai.comma.lib.ast.javasource.JavaParser._
 import de.uniulm.iai.comma.model.{Value, Measure}
-import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure.NcscssDescriptor
+
+import scala.collection.immutable.BitSet
 
 object NcscssVisitor extends TreeVisitorFactory {
 
   override def measures() = Vector(Measure.NCSCSS)
 
-  override def createVisitor(descriptor: Descriptor, artifact: Option[String]): NcscssVisitor = {
-    new NcscssVisitor(descriptor.asInstanceOf[NcscssDescriptor], artifact)
+  override def createVisitor(artifact: Option[String]): NcscssVisitor = {
+    new NcscssVisitor(artifact)
   }
 
+  override val visitedNodeTypes = Some(BitSet(PACKAGE, IMPORT, AT, CLASS_DECLARATION, ENUM, INTERFACE, ENUM_CONSTANT,
+    CLASS_STATIC_INITIALIZER, CONSTRUCTOR_DECL, VOID_METHOD_DECL, FUNCTION_METHOD_DECL, ANNOTATION_METHOD_DECL,
+    VAR_DECLARATOR, VAR_DECLARATION, IF, ELSE, WHILE, DO, FOR, FOR_EACH, SWITCH, CASE, DEFAULT, BREAK, CONTINUE,
+    RETURN, THROW, SYNCHRONIZED_BLOCK, TRY, CATCH, FINALLY, ASSERT, SUPER_CONSTRUCTOR_CALL, THIS_CONSTRUCTOR_CALL,
+    METHOD_CALL, ASSIGN, AND_ASSIGN, BIT_SHIFT_RIGHT_ASSIGN, DIV_ASSIGN, MINUS_ASSIGN, MOD_ASSIGN, OR_ASSIGN,
+    PLUS_ASSIGN, SHIFT_LEFT_ASSIGN, SHIFT_RIGHT_ASSIGN, STAR_ASSIGN, XOR_ASSIGN, POST_DEC, POST_INC, PRE_DEC, PRE_INC,
+    QUESTION, VAR_DECLARATOR_LIST))
+
 }
 
 
-class NcscssVisitor(descriptor: NcscssDescriptor, artifact: Option[String]) extends TreeVisitor {
+class NcscssVisitor(artifact: Option[String]) extends TreeVisitor {
 
   var debug = false
   private var counter: Long = 0
@@ -117,7 +125,6 @@ class NcscssVisitor(descriptor: NcscssDescriptor, artifact: Option[String]) exte
   }
 
   override def measuredValues() = {
-    descriptor.setNcscss(counter)
     Vector(Value(artifact, Measure.NCSCSS, counter))
   }
 }
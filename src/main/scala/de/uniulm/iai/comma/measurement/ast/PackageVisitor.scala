@@ -1,19 +1,13 @@
 package de.uniulm.iai.comma.measurement.ast
 
-import com.buschmais.jqassistant.core.scanner.api.ScannerContext
 import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree
 import de.uniulm.iai.comma.lib.ast.javasource.JavaParser._
-import de.uniulm.iai.jqassistant.javasrc.plugin.model.JavaSourceDescriptor
-import de.uniulm.iai.jqassistant.javasrc.plugin.scanner.ScannerHelper
-
-import scala.collection.JavaConversions._
 
 /**
  * @author Steffen Kram
  */
 
-class PackageVisitor(helper: ScannerHelper, descriptor: JavaSourceDescriptor)
-    extends TreeVisitor with VisitorHelper {
+class PackageVisitor extends TreeVisitor with VisitorHelper {
 
   /** Store the package identifier of this file if one is present */
   private var packageName: Option[String] = None
@@ -22,7 +16,7 @@ class PackageVisitor(helper: ScannerHelper, descriptor: JavaSourceDescriptor)
     node.getType match {
 
       case PACKAGE => {
-        packageName = Some(stringifyNodes(node.getChildren.toIndexedSeq, "").trim.replace(" ", "."))
+        packageName = Some(qualifiedName(node))
       }
 
       case _ => // Ignore all other tokens
@@ -0,0 +1,41 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.measurement.ast
+
+object ParseBudget {
+
+  /** No limits, every source is parsed completely. */
+  val Unlimited = ParseBudget(0, 0)
+}
+
+/**
+ * Limits of parsing a single source. A source exceeding its budget is analyzed in a degraded mode, see
+ * [[AstAnalyzer.degradation]].
+ *
+ * @param maxTokens
+ *                  The maximum number of tokens of a source, not limited if not positive.
+ * @param maxMillis
+ *                  The maximum time to parse a source in milliseconds, not limited if not positive.
+ */
+case class ParseBudget(maxTokens: Int, maxMillis: Long) {
+
+  /** Return why the given number of tokens exceeds the budget, if it does. */
+  def exceededBy(tokenCount: Int): Option[String] = {
+    if (maxTokens > 0 && tokenCount > maxTokens) Some(s"$tokenCount tokens exceed $maxTokens tokens") else None
+  }
+}
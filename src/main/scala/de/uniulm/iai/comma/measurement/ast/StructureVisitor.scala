@@ -17,13 +17,9 @@
  */
 package de.uniulm.iai.comma.measurement.ast
 
-import com.buschmais.jqassistant.core.store.api.model.Descriptor
 import de.uniulm.iai.comma.lib.ast.javasource.JavaParser._
 import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree
 import de.uniulm.iai.comma.model._
-import de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner.TypeCache
-import de.uniulm.iai.jqassistant.javasrc.plugin.model._
-import de.uniulm.iai.jqassistant.javasrc.plugin.scanner.ScannerHelper
 import org.antlr.runtime.tree.Tree
 
 import scala.collection.JavaConversions._
@@ -33,8 +29,11 @@ import scala.collection.JavaConversions._
  * The Structure visitor is a very sophisticated visitor implementation that is capable of dispatching
  * to numerous sub-visitors. A sub-visitor does implement the same `TreeVisitor` trait. It should compute
  * a measure that holds if applied in a sub-structural context.
+ *
+ * The visitor does not access the store. All detected structures are recorded as declarations, which are
+ * written by the scanner once the analysis is complete.
  */
-class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: ScannerHelper)
+class StructureVisitor(compilationUnitPath: String, declarations: SourceStructure.Builder)
     extends TreeVisitor with VisitorHelper {
 
   /** Internal storage for all registered artifact type visitor factories */
@@ -52,19 +51,64 @@ class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: S
    * visitors dispatching mode to those who have a companion object which implements the
    * `TreeVisitorFactory` trait.
    */
-  def addVisitorFactory(artifactType: ArtifactType, factory: TreeVisitorFactory) = {
+  def addVisitorFactory(artifactType: ArtifactType, factory: TreeVisitorFactory): Unit = {
     if (!visitorFactories.contains(artifactType)) {
       visitorFactories(artifactType) = collection.mutable.Set.empty[TreeVisitorFactory]
     }
     visitorFactories(artifactType) += factory
+    dispatchTables -= artifactType
+  }
+
+  /** Remove all visitor factories, structures detected afterwards are not measured. */
+  def clearVisitorFactories(): Unit = {
+    visitorFactories.clear()
+    dispatchTables.clear()
+  }
+
+  /** Dispatch tables of all artifact types a structure has been created for, built on first use */
+  private val dispatchTables = collection.mutable.Map.empty[ArtifactType, DispatchTable]
+
+  /**
+   * The factories of an artifact type together with a table of the factories interested in each node type. The
+   * table holds indices into `factories`, so a node is only passed to the visitors which subscribed to its type.
+   */
+  private class DispatchTable(val factories: IndexedSeq[TreeVisitorFactory]) {
+    private val allFactories = factories.indices.toArray
+
+    private val byNodeType = Array.tabulate(tokenNames.length) { nodeType =>
+      allFactories.filter(i => factories(i).visitedNodeTypes.forall(_.contains(nodeType)))
+    }
+
+    def factoriesFor(nodeType: Int): Array[Int] = {
+      if (nodeType >= 0 && nodeType < byNodeType.length) byNodeType(nodeType) else allFactories
+    }
+  }
+
+  /** The visitors of a single structure, created by the factories of a dispatch table in the same order. */
+  private class StructureVisitors(table: DispatchTable, val all: IndexedSeq[TreeVisitor]) {
+    def visit(node: EnhancedCommonTree, topmostStructure: Boolean): Unit = {
+      val subscribed = table.factoriesFor(node.getType)
+      var i = 0
+      while (i < subscribed.length) {
+        all(subscribed(i)).visit(node, topmostStructure)
+        i += 1
+      }
+    }
   }
 
-  /** This is an internal class to store information about the source structure while parsing the source file. */
+  /**
+   * This is an internal class to store information about the source structure while parsing the source file.
+   *
+   * The `declaration` is the index of the declaration recorded for this structure, `typeDeclaration` is only
+   * defined for structures which may declare members, i.e. types.
+   */
   private class Structure(val node: EnhancedCommonTree,
                            val name: String,
-                           val cachedType: Option[TypeCache.CachedType[_ <: TypeDescriptor]],
+                           val declaration: Int,
+                           val typeDeclaration: Option[Int],
+                           val typeName: Option[String],
                            val parent: Option[Structure],
-                           val visitors: Set[TreeVisitor]) {
+                           val visitors: StructureVisitors) {
 
     /** Check if this structure is the compilation unit. */
     def isCompilationUnit: Boolean = { node.getType == JAVA_SOURCE }
@@ -107,18 +151,21 @@ class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: S
   override def visit(node: EnhancedCommonTree) = {
 
     // Remove closed elements from stack
-    structureStack = structureStack.filter(_.containsNode(node))
+    if (structureStack.exists(!_.containsNode(node))) {
+      structureStack = structureStack.filter(_.containsNode(node))
+    }
 
     // Evaluate node type to build source structure
     node.getType match {
       case JAVA_SOURCE =>
-        val visitors = createStructureVisitors(ArtifactType.COMPILATION_UNIT, compilationUnit, None)
-        val structure = new Structure(node, node.getText, None, None, visitors)
+        val visitors = createStructureVisitors(ArtifactType.COMPILATION_UNIT, None)
+        val declaration = declarations.add(CompilationUnitDeclaration)
+        val structure = new Structure(node, node.getText, declaration, None, None, None, visitors)
         structures(node) = structure
         structureStack.push(structure)
 
       case PACKAGE =>
-        packageName = Some(stringifyNodes(node.getChildren.toIndexedSeq, "").trim.replace(" ", "."))
+        packageName = Some(qualifiedName(node))
 
       case CLASS_DECLARATION
            | INTERFACE
@@ -147,9 +194,13 @@ class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: S
     }
 
     // Dispatch to child visitors for each active structure on our stack, some visitors are only called
-    // if it is the topmost structure. The latter decision is up to the visitor implementation.
-    structureStack.foreach { s =>
-      s.visitors.foreach(_.visit(node, s.equals(structureStack.top)))
+    // if it is the topmost structure. The latter decision is up to the visitor implementation. Only visitors
+    // subscribed to the node type are called at all.
+    if (structureStack.nonEmpty) {
+      val top = structureStack.top
+      structureStack.foreach { s =>
+        s.visitors.visit(node, s.equals(top))
+      }
     }
   }
 
@@ -181,32 +232,23 @@ class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: S
   private def visitOuterTypeDeclaration(node: EnhancedCommonTree, className: String, fullClassName: String): Structure = {
 
     // Determine artifact types
-    val classType = node.getType match {
-      case CLASS_DECLARATION => (ArtifactType.CLASS, classOf[ClassDescriptor])
-      case INTERFACE => (ArtifactType.INTERFACE, classOf[InterfaceDescriptor])
-      case ENUM => (ArtifactType.ENUM, classOf[EnumDescriptor])
-      case ANNOTATION_DECL => (ArtifactType.ANNOTATION, classOf[AnnotationDescriptor])
+    val artifactType = node.getType match {
+      case CLASS_DECLARATION => ArtifactType.CLASS
+      case INTERFACE => ArtifactType.INTERFACE
+      case ENUM => ArtifactType.ENUM
+      case ANNOTATION_DECL => ArtifactType.ANNOTATION
       case _ => throw new IllegalStateException("Unexpected class type: " + node.getType)
     }
 
-    val cachedType = helper.createType(fullClassName, classType._2)
-    val descr = cachedType.getTypeDescriptor
-    descr.setDeclarationUnit(compilationUnit)
-    descr.setName(className)
-    descr.setStartLineNumber(node.getLine)
-    descr.setEndLineNumber(node.getLastLine)
-    descr.setVisibility(detectVisibility(node).name)
-    descr.setFinal(detectFinal(node))
-    descr.setStatic(detectStatic(node))
-    descr.setAbstract(detectAbstract(node))
-
     // There might be more than one java artifact declaration on the outermost level
-    if (compilationUnit.getFullQualifiedName.endsWith("/" + className + ".java")) {
-      compilationUnit.setMainType(descr)
-    }
+    val isMainType = compilationUnitPath.endsWith("/" + className + ".java")
+
+    val declaration = declarations.add(TypeDeclaration(artifactType, fullClassName, className, None,
+      node.getLine, node.getLastLine, detectVisibility(node), detectFinal(node), detectStatic(node),
+      detectAbstract(node), isMainType))
 
-    val visitors = createStructureVisitors(classType._1, descr, Some(fullClassName))
-    new Structure(node, fullClassName, Some(cachedType), None, visitors)
+    val visitors = createStructureVisitors(artifactType, Some(fullClassName))
+    new Structure(node, fullClassName, declaration, Some(declaration), Some(className), None, visitors)
   }
 
 
@@ -214,32 +256,22 @@ class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: S
   private def visitInnerTypeDeclaration(node: EnhancedCommonTree, parent: Structure, className: String,
                                        fullClassName: String): Structure = {
     // Determine inner artifact types
-    val classType = node.getType match {
-      case CLASS_DECLARATION  => (ArtifactType.INNER_CLASS, classOf[ClassDescriptor])
-      case INTERFACE          => (ArtifactType.INNER_INTERFACE, classOf[InterfaceDescriptor])
-      case ENUM               => (ArtifactType.INNER_ENUM, classOf[EnumDescriptor])
-      case ANNOTATION_DECL    => (ArtifactType.INNER_ANNOTATION, classOf[AnnotationDescriptor])
+    val artifactType = node.getType match {
+      case CLASS_DECLARATION  => ArtifactType.INNER_CLASS
+      case INTERFACE          => ArtifactType.INNER_INTERFACE
+      case ENUM               => ArtifactType.INNER_ENUM
+      case ANNOTATION_DECL    => ArtifactType.INNER_ANNOTATION
       case _ => throw new IllegalStateException("Unexpected inner class type: " + node.getType)
     }
 
-    val visibility = detectVisibility(node)
+    // Add declaration as inner type definition. Types declared within a method do not have a type as parent,
+    // which is not supported and fails once the declaration is written.
+    val declaration = declarations.add(TypeDeclaration(artifactType, fullClassName, className,
+      parent.typeDeclaration, node.getLine, node.getLastLine, detectVisibility(node), detectFinal(node),
+      detectStatic(node), detectAbstract(node), isMainType = false))
 
-    // Create new descriptor
-    val cachedType = helper.createType(fullClassName, classType._2)
-    val descr = cachedType.getTypeDescriptor
-    descr.setName(className)
-    descr.setStartLineNumber(node.getLine)
-    descr.setEndLineNumber(node.getLastLine)
-    descr.setVisibility(visibility.name)
-    descr.setFinal(detectFinal(node))
-    descr.setStatic(detectStatic(node))
-    descr.setAbstract(detectAbstract(node))
-
-    // Add descriptor as inner type definition
-    parent.cachedType.get.getTypeDescriptor.getDeclaredInnerTypes.add(descr)
-
-    val visitors = createStructureVisitors(classType._1, descr, Some(fullClassName))
-    new Structure(node, fullClassName, Some(cachedType), Some(parent), visitors)
+    val visitors = createStructureVisitors(artifactType, Some(fullClassName))
+    new Structure(node, fullClassName, declaration, Some(declaration), Some(className), Some(parent), visitors)
   }
 
 
@@ -258,17 +290,11 @@ class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: S
     }
 
     // Create new structure
-    val cachedType = helper.createType(enumName, classOf[EnumConstantDescriptor])
-    val descr = cachedType.getTypeDescriptor
-    descr.setName(enumName)
-    descr.setStartLineNumber(node.getLine)
-    descr.setEndLineNumber(node.getLastLine)
+    val declaration = declarations.add(
+      EnumConstantDeclaration(enumName, parent.typeDeclaration.get, node.getLine, node.getLastLine))
 
-    // Add descriptor as inner type definition
-    parent.cachedType.get.getTypeDescriptor.getDeclaredInnerTypes.add(descr)
-
-    val visitors = createStructureVisitors(ArtifactType.ENUM_CONST, descr, Some(enumName))
-    val structure = new Structure(enumDecl, enumName, None, Some(parent), visitors)
+    val visitors = createStructureVisitors(ArtifactType.ENUM_CONST, Some(enumName))
+    val structure = new Structure(enumDecl, enumName, declaration, None, None, Some(parent), visitors)
     structures(enumDecl) = structure
     structureStack.push(structure)
   }
@@ -279,21 +305,14 @@ class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: S
     val parent = structureStack.top
 
     // Create new structure
-    val constructorSig =
-      addToSignature(node.getChildren.toIndexedSeq, parent.name)
-
-    val descr = helper.constructorDescriptor(parent.cachedType.get, constructorSig)
-    descr.setName(parent.cachedType.get.getTypeDescriptor.getName)
-    descr.setSignature(constructorSig)
-    descr.setAbstract(detectAbstract(node))
-    descr.setFinal(detectFinal(node))
-    descr.setVisibility(detectVisibility(node).name)
-    descr.setStartLineNumber(node.getLine)
-    descr.setEndLineNumber(node.getLastLine)
+    val constructorSig = functionSignature(node, parent.name)
 
+    val declaration = declarations.add(FunctionDeclaration(ArtifactType.CONSTRUCTOR, constructorSig,
+      parent.typeName.get, parent.typeDeclaration.get, node.getLine, node.getLastLine, detectVisibility(node),
+      detectFinal(node), isStatic = false, detectAbstract(node), detectParameterTypes(node)))
 
-    val visitors = createStructureVisitors(ArtifactType.CONSTRUCTOR, descr, Some(constructorSig))
-    val structure = new Structure(node, constructorSig, None, Some(parent), visitors)
+    val visitors = createStructureVisitors(ArtifactType.CONSTRUCTOR, Some(constructorSig))
+    val structure = new Structure(node, constructorSig, declaration, None, None, Some(parent), visitors)
     structures(node) = structure
     structureStack.push(structure)
   }
@@ -304,22 +323,17 @@ class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: S
     val parent = structureStack.top
 
     // Create new structure
-    val parentSimpleClassName = parent.cachedType.get.getTypeDescriptor.getName
+    val parentSimpleClassName = parent.typeName.get
+    val parentDeclaration = parent.typeDeclaration.get
     val index = parent.anonClassCount
 
-    val cachedType = helper.createType(s"${parent.name}.ANON[$index]", classOf[AnonymousClassDescriptor])
-    val descr = cachedType.getTypeDescriptor
-    descr.setIndex(index)
-    descr.setName(s"$parentSimpleClassName.ANON[${descr.getIndex}]")
-    descr.setStartLineNumber(node.getLine)
-    descr.setEndLineNumber(node.getLastLine)
+    val fullClassName = s"${parent.name}.ANON[$index]"
+    val declaration = declarations.add(
+      AnonymousClassDeclaration(fullClassName, index, parentDeclaration, node.getLine, node.getLastLine))
 
-    // Add descriptor as inner type definition
-    parent.cachedType.get.getTypeDescriptor.getDeclaredInnerTypes.add(descr)
-
-    val visitors =
-      createStructureVisitors(ArtifactType.ANON_INNER_CLASS, descr, Some(descr.getFullQualifiedName))
-    val structure = new Structure(node, descr.getFullQualifiedName, Some(cachedType), Some(parent), visitors)
+    val visitors = createStructureVisitors(ArtifactType.ANON_INNER_CLASS, Some(fullClassName))
+    val structure = new Structure(node, fullClassName, declaration, Some(declaration),
+      Some(s"$parentSimpleClassName.ANON[$index]"), Some(parent), visitors)
     structures(node) = structure
     structureStack.push(structure)
   }
@@ -330,19 +344,15 @@ class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: S
     val parent = structureStack.top
 
     // Create new structure
-    val methodName = addToSignature(node.getChildren.toIndexedSeq, parent.name + ".")
-
-    val descr = helper.methodDescriptor(parent.cachedType.get, methodName)
-    descr.setName(getFunctionIdentifier(node.getChildren.toIndexedSeq))
-    descr.setAbstract(detectAbstract(node))
-    descr.setFinal(detectFinal(node))
-    descr.setVisibility(detectVisibility(node).name)
-    descr.setStatic(detectStatic(node))
-    descr.setStartLineNumber(node.getLine)
-    descr.setEndLineNumber(node.getLastLine)
-
-    val visitors = createStructureVisitors(ArtifactType.METHOD, descr, Some(methodName))
-    val structure = new Structure(node, methodName, None, Some(parent), visitors)
+    val methodName = functionSignature(node, parent.name + ".")
+
+    val declaration = declarations.add(FunctionDeclaration(ArtifactType.METHOD, methodName,
+      getFunctionIdentifier(node.getChildren.toIndexedSeq), parent.typeDeclaration.get, node.getLine,
+      node.getLastLine, detectVisibility(node), detectFinal(node), detectStatic(node), detectAbstract(node),
+      detectParameterTypes(node)))
+
+    val visitors = createStructureVisitors(ArtifactType.METHOD, Some(methodName))
+    val structure = new Structure(node, methodName, declaration, None, None, Some(parent), visitors)
     structures(node) = structure
     structureStack.push(structure)
   }
@@ -353,36 +363,30 @@ class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: S
     val parent = structureStack.top
 
     // Only include fields and no variable declarations inside of methods!
-    if (parent.cachedType.isDefined) {
-      val visibility = detectVisibility(node).name
+    if (parent.typeDeclaration.isDefined) {
+      val visibility = detectVisibility(node)
       val isFinal = detectFinal(node)
       val isStatic = detectStatic(node)
       val isTransient = detectTransient(node)
       val isVolatile = detectVolatile(node)
-      val fieldType = detectType(node)
+      val fieldTypes = detectTypeNames(node)
       val fieldNameNodes = detectVariableDeclarators(node)
 
       fieldNameNodes.foreach { n =>
         val signature = n.getChild(0).getText
-        val descr = helper.fieldDescriptor(parent.cachedType.get, signature)
-        descr.setName(signature)
-        descr.setVisibility(visibility)
-        descr.setFinal(isFinal)
-        descr.setStatic(isStatic)
-        descr.setTransient(isTransient)
-        descr.setVolatile(isVolatile)
-        descr.setStartLineNumber(node.getLine)
-
-        val typeDescr = helper.resolveType(fieldType.get.getText, parent.cachedType.get).getTypeDescriptor
-        descr.setType(typeDescr)
+        declarations.add(FieldDeclaration(signature, fieldTypes.head, fieldTypes.tail, parent.typeDeclaration.get,
+          node.getLine, visibility, isFinal, isStatic, isTransient, isVolatile))
       }
     }
   }
 
 
+  /** Whether a visitor of any registered factory needs comments. */
+  override def needsComments: Boolean = visitorFactories.values.exists(_.exists(_.needsComments))
+
   /** Return all measured values of all visitors for each detected structure. */
   override def measuredValues() = {
-    val res = structures flatMap { _._2.visitors flatMap { _.measuredValues() }}
+    val res = structures flatMap { _._2.visitors.all flatMap { _.measuredValues() }}
     res.toIndexedSeq
   }
 
@@ -394,24 +398,23 @@ class StructureVisitor(compilationUnit: JavaCompilationUnitDescriptor, helper: S
    * Calls the measuredValues method for each visitor registered with a substructure.
    *
    * It is necessary to run this evaluation method after the structural analysis is complete to
-   * force all substructure visitors to create their nodes in the underlying database.
+   * collect the values of all substructure visitors. They are returned by the index of the
+   * declaration of their structure.
    */
-  def evaluateSubstructureVisitors(): Unit = {
-    structures.values.foreach(s => s.visitors.foreach(_.measuredValues()))
+  def evaluateSubstructureVisitors(): Map[Int, Iterable[Value]] = {
+    structures.values.map(s => (s.declaration, s.visitors.all.flatMap(_.measuredValues()))).toMap
   }
 
-  /** This method provides a save way to get a set with newly created visitors for a detected structure */
+  /** This method provides a save way to get newly created visitors for a detected structure */
   private def createStructureVisitors(artifactType: ArtifactType,
-                                      descriptor: Descriptor,
-                                      artifactName: Option[String]): Set[TreeVisitor] = {
+                                      artifactName: Option[String]): StructureVisitors = {
 
     // Check if artifact type is already present in visitor factories list - if not create it!
     if (!visitorFactories.contains(artifactType)) {
       visitorFactories(artifactType) = collection.mutable.Set.empty[TreeVisitorFactory]
     }
 
-    visitorFactories(artifactType).map { v =>
-      v.createVisitor(descriptor, artifactName)
-    }.toSet
+    val table = dispatchTables.getOrElseUpdate(artifactType, new DispatchTable(visitorFactories(artifactType).toVector))
+    new StructureVisitors(table, table.factories.map(_.createVisitor(artifactName)))
   }
 }
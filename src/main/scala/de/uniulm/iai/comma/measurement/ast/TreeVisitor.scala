@@ -48,6 +48,12 @@ trait TreeVisitor {
    */
   def visit(node: EnhancedCommonTree, topmostStructure: Boolean): Unit = visit(node)
 
+  /**
+   * Whether this visitor reads the comments attached to the nodes. Comments are only preserved by the lexer and
+   * attached to the nodes if a visitor of the analysis needs them.
+   */
+  def needsComments: Boolean = false
+
   def measuredValues(): Iterable[Value] = {
     Iterable.empty[Value]
   }
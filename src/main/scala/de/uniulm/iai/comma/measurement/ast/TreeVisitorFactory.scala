@@ -17,16 +17,25 @@
  */
 package de.uniulm.iai.comma.measurement.ast
 
-import com.buschmais.jqassistant.core.store.api.model.Descriptor
 import de.uniulm.iai.comma.model.Measure
 
+import scala.collection.immutable.BitSet
 
 trait TreeVisitorFactory {
 
   def measures(): Iterable[Measure]
 
-  def createVisitor(descriptor: Descriptor): TreeVisitor = createVisitor(descriptor, None)
+  def createVisitor(): TreeVisitor = createVisitor(None)
 
-  def createVisitor(descriptor: Descriptor, artifact: Option[String]): TreeVisitor
+  def createVisitor(artifact: Option[String]): TreeVisitor
+
+  /**
+   * The node types the visitors of this factory are interested in, as defined by `JavaParser`. Nodes of other
+   * types are not passed to the visitors when dispatched by the `StructureVisitor`. `None` subscribes to all nodes.
+   */
+  def visitedNodeTypes: Option[BitSet] = None
+
+  /** Whether the visitors of this factory read the comments attached to the nodes, see [[TreeVisitor.needsComments]]. */
+  def needsComments: Boolean = false
 
 }
@@ -17,31 +17,16 @@
  */
 package de.uniulm.iai.comma.measurement.ast
 
+import de.uniulm.iai.comma.lib.ast.TreeTraversal
 import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree
 
-import scala.annotation.tailrec
-import scala.collection.JavaConversions._
-
 trait TreeWalker {
 
   def visitors: Iterable[TreeVisitor]
 
-  @tailrec
+  /** Pass the given nodes and all of their descendants to each visitor, in depth-first order. */
   final def walk(nodes: IndexedSeq[EnhancedCommonTree]) {
-
-    // Visit first node in list
-    val node = nodes(0)
-    visitors foreach { _.visit(node) }
-
-    // Remove first element from node list and prepend all node children afterwards
-    val leftNodes =
-      if (node.getChildCount() > 0) node.getChildren().toIndexedSeq ++ nodes.tail
-      else nodes.tail
-
-    // Do next walk if there are still nodes left, return otherwise
-    leftNodes.size match {
-      case 0 => None
-      case _ => walk(leftNodes)
-    }
+    val visitorList = visitors
+    TreeTraversal.foreach(nodes) { node => visitorList foreach { _.visit(node) } }
   }
 }
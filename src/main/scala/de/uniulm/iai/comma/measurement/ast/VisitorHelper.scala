@@ -17,6 +17,7 @@
  */
 package de.uniulm.iai.comma.measurement.ast
 
+import de.uniulm.iai.comma.lib.ast.TreeTraversal
 import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree
 import de.uniulm.iai.comma.lib.ast.javasource.JavaParser._
 import de.uniulm.iai.comma.model.Visibility
@@ -24,6 +25,20 @@ import de.uniulm.iai.comma.model.Visibility
 import scala.annotation.tailrec
 import scala.collection.JavaConversions._
 
+object VisitorHelper {
+
+  /** Builder of the signatures and names of each thread, reused for all declarations. */
+  private val builders = new ThreadLocal[java.lang.StringBuilder] {
+    override def initialValue() = new java.lang.StringBuilder(128)
+  }
+
+  private def builder(prefix: String): java.lang.StringBuilder = {
+    val builder = builders.get
+    builder.setLength(0)
+    builder.append(prefix)
+  }
+}
+
 /**
  * @author Steffen Kram
  */
@@ -39,71 +54,132 @@ trait VisitorHelper {
     }
   }
 
-  @tailrec
-  final def addToSignature(nodes: IndexedSeq[EnhancedCommonTree], signature: String): String = {
-
-    // Special abort case for annotation, since they do not have a formal parameter list!
-    if (nodes.isEmpty) return signature + "()"
+  /**
+   * Return the signature of a constructor or method: the given prefix, its identifier and the types and names of
+   * its parameters. The signature is built in the builder of the current thread, in a single pass over the children
+   * of the declaration.
+   */
+  final def functionSignature(node: EnhancedCommonTree, prefix: String): String = {
+    val signature = VisitorHelper.builder(prefix)
+    appendSignature(node, signature)
+    signature.toString
+  }
 
-    // Find signature
-    nodes.get(0).getType match {
-      case IDENT =>
-        val sig = signature + nodes.get(0).getText
-        addToSignature(nodes.tail, sig)
-      case FORMAL_PARAM_LIST =>
-        val types =
-          if (nodes.get(0).getChildren != null)
-            addToParamList(nodes.get(0).getChildren.toIndexedSeq, "")
-          else ""
-        signature + "(" + types + ")"
-      case _ => addToSignature(nodes.tail, signature)
+  private def appendSignature(node: EnhancedCommonTree, signature: java.lang.StringBuilder): Unit = {
+    var i = 0
+    while (i < node.getChildCount) {
+      val child = node.getChild(i)
+      child.getType match {
+        case IDENT =>
+          signature.append(child.getText)
+        case FORMAL_PARAM_LIST =>
+          signature.append('(')
+          appendParamList(child, signature)
+          signature.append(')')
+          return
+        case _ =>
+      }
+      i += 1
     }
+
+    // Special case for annotations, since they do not have a formal parameter list!
+    signature.append("()")
   }
 
-  @tailrec
-  final def addToParamList(params: IndexedSeq[EnhancedCommonTree], paramList: String): String = {
-    params.get(0).getType match {
-      case FORMAL_PARAM_VARARG_DECL =>
-        val reversed = stringifyNodes(params.get(0).getChildren.toIndexedSeq, "").split(' ').reverse
-        val param = reversed.updated(1, reversed(1) + "...").reverse.foldLeft("")((cur, elem) => cur + " " + elem)
-        val p = paramList + param
-        if (params.length == 1) p.trim
-        else addToParamList(params.tail, p.trim + ", ")
-      case FORMAL_PARAM_STD_DECL =>
-        val p = paramList + stringifyNodes(params.get(0).getChildren.toIndexedSeq, "")
-        if (params.length == 1) p.trim
-        else addToParamList(params.tail, p.trim + ", ")
-      case _ =>
-        addToParamList(params.tail, paramList.trim)
+  /**
+   * Append the parameters separated by commas. A vararg parameter is preceded by an additional space and its type is
+   * followed by the ellipsis, as the signatures of the store have always been built.
+   */
+  private def appendParamList(params: EnhancedCommonTree, signature: java.lang.StringBuilder): Unit = {
+    val start = signature.length
+    val count = params.getChildCount
+    var i = 0
+    while (i < count) {
+      val param = params.getChild(i)
+      param.getType match {
+        case FORMAL_PARAM_VARARG_DECL =>
+          signature.append(' ')
+          val from = signature.length
+          appendChildLeaves(param, signature, from)
+          val lastSpace = signature.lastIndexOf(" ")
+          if (lastSpace >= from) signature.insert(lastSpace, "...")
+          separate(signature, start, i == count - 1)
+        case FORMAL_PARAM_STD_DECL =>
+          appendChildLeaves(param, signature, signature.length)
+          separate(signature, start, i == count - 1)
+        case _ =>
+          trim(signature, start)
+      }
+      i += 1
     }
   }
 
-  @tailrec
+  private def separate(signature: java.lang.StringBuilder, start: Int, last: Boolean): Unit = {
+    trim(signature, start)
+    if (!last) signature.append(", ")
+  }
+
+  /** Concatenate the text of all leaf nodes below the given nodes, in source order. */
   final def stringifyNodes(nodes: IndexedSeq[EnhancedCommonTree], text: String): String = {
-    var newText = text
-
-    val node = nodes.get(0)
-    val leftNodes =
-      if (node.getChildren != null) {
-        node.getChildren.toIndexedSeq ++ nodes.tail
-      } else {
-        newText =
-          node.getType match {
-            case LOCAL_MODIFIER_LIST | SEMI => text
-            case SUPER | EXTENDS => text + " " + node.getText
-            case IDENT => {
-              text + {
-                if (!text.isEmpty && text.last != '.' && text.last != '<') " "
-                else ""
-              } + node.getText
-            }
-            case _ => text + node.getText
-          }
-        nodes.tail
-      }
+    val builder = VisitorHelper.builder(text)
+    TreeTraversal.foreach(nodes) { leaf =>
+      if (leaf.getChildren == null) appendLeaf(leaf, builder, 0)
+    }
+    builder.toString
+  }
 
-    if (leftNodes.size == 0) newText
-    else stringifyNodes(leftNodes, newText)
+  /** Return the dotted name of a package or import declaration, e.g. `java.util.*`. */
+  final def qualifiedName(node: EnhancedCommonTree): String = {
+    val name = VisitorHelper.builder("")
+    appendChildLeaves(node, name, 0)
+    trim(name, 0)
+    var i = 0
+    while (i < name.length) {
+      if (name.charAt(i) == ' ') name.setCharAt(i, '.')
+      i += 1
+    }
+    name.toString
+  }
+
+  /** Append the text of all leaf nodes below the given node, but not the node itself if it is a leaf. */
+  private def appendChildLeaves(node: EnhancedCommonTree, text: java.lang.StringBuilder, from: Int): Unit = {
+    if (node.getChildren != null) appendLeaves(node, text, from)
+  }
+
+  /**
+   * Append the text of all leaf nodes below the given node in source order, identifiers are separated by a space
+   * unless they follow a dot or an opening angle bracket. The text appended before `from` is not taken into account.
+   */
+  private def appendLeaves(node: EnhancedCommonTree, text: java.lang.StringBuilder, from: Int): Unit = {
+    TreeTraversal.foreach(node) { leaf =>
+      if (leaf.getChildren == null) appendLeaf(leaf, text, from)
+    }
+  }
+
+  private def appendLeaf(leaf: EnhancedCommonTree, text: java.lang.StringBuilder, from: Int): Unit = {
+    leaf.getType match {
+      case LOCAL_MODIFIER_LIST | SEMI =>
+      case SUPER | EXTENDS =>
+        text.append(' ').append(leaf.getText)
+      case IDENT =>
+        if (text.length > from) {
+          val last = text.charAt(text.length - 1)
+          if (last != '.' && last != '<') text.append(' ')
+        }
+        text.append(leaf.getText)
+      case _ =>
+        text.append(leaf.getText)
+    }
+  }
+
+  /** Remove leading and trailing white space from the text appended after `start`, like `String.trim`. */
+  private def trim(text: java.lang.StringBuilder, start: Int): Unit = {
+    var end = text.length
+    while (end > start && text.charAt(end - 1) <= ' ') end -= 1
+    text.setLength(end)
+    var first = start
+    while (first < end && text.charAt(first) <= ' ') first += 1
+    if (first > start) text.delete(start, first)
   }
 
   /** Use this method to detect the identifier of a certain node among its children. */
@@ -203,6 +279,50 @@ trait VisitorHelper {
     } yield typeNode
   }
 
+  /** Return the names of the types of a field, see [[typeNames]]. */
+  def detectTypeNames(node: EnhancedCommonTree): IndexedSeq[String] = {
+    node.getChildren.find(_.getType == TYPE).map(typeNames).getOrElse(Vector.empty)
+  }
+
+  /** Return the names of the types of the formal parameters of the given function, see [[typeNames]]. */
+  def detectParameterTypes(node: EnhancedCommonTree): IndexedSeq[String] = {
+    node.getChildren.find(_.getType == FORMAL_PARAM_LIST) match {
+      case Some(list) if list.getChildren != null => list.getChildren.toVector.flatMap(detectTypeNames)
+      case _ => Vector.empty
+    }
+  }
+
+  /**
+   * Return the names of all types a `TYPE` node refers to, its own type followed by the types of its type arguments
+   * in source order, e.g. `java.util.Map`, `String` and `Foo` for `java.util.Map<String, ? extends Foo[]>`.
+   */
+  final def typeNames(typeNode: EnhancedCommonTree): IndexedSeq[String] = {
+    val names = Vector.newBuilder[String]
+    TreeTraversal.foreach(typeNode) { node =>
+      if (node.getType == TYPE) names += typeName(node)
+    }
+    names.result()
+  }
+
+  /** Return the name of the type of a `TYPE` node as written, e.g. `java.util.Map` or `int`, without type arguments. */
+  private def typeName(typeNode: EnhancedCommonTree): String = {
+    val name = VisitorHelper.builder("")
+    var i = 0
+    while (i < typeNode.getChildCount) {
+      val child = typeNode.getChild(i)
+      child.getType match {
+        case IDENT =>
+          if (name.length > 0) name.append('.')
+          name.append(child.getText)
+        case DOT | ARRAY_DECLARATOR_LIST =>
+        case _ =>
+          name.append(child.getText)
+      }
+      i += 1
+    }
+    name.toString
+  }
+
   def detectVariableDeclarators(node: EnhancedCommonTree): Iterable[EnhancedCommonTree] = {
     node.getChildren.find(_.getType == VAR_DECLARATOR_LIST) match {
       case Some(list) =>
@@ -17,87 +17,162 @@
  */
 package de.uniulm.iai.comma.measurement.processor
 
-import java.io.InputStreamReader
+import java.io.Reader
 
-import com.buschmais.jqassistant.plugin.common.api.scanner.filesystem.FileResource
 import de.uniulm.iai.comma.measurement.ast._
 import de.uniulm.iai.comma.model._
-import de.uniulm.iai.jqassistant.javasrc.plugin.scanner.ScannerHelper
+import org.antlr.runtime.CharStream
+import org.apache.commons.logging.LogFactory
 
-object JavaMeasurement {
-  def apply(helper: ScannerHelper, item: FileResource, path: String) = {
-    new JavaMeasurement(helper, item, path)
-  }
-}
+import scala.util.control.NonFatal
 
-class JavaMeasurement(helper: ScannerHelper, item: FileResource, path: String) extends AstAnalyzer {
+object JavaMeasurement {
+  private val logger = LogFactory.getLog(classOf[JavaMeasurement])
 
-  // Create the java compilation unit descriptor
-  val compilationUnitDescriptor = helper.createCompilationUnit(path, item.getFile.getName)
+  def apply(path: String) = {
+    new JavaMeasurement(path)
+  }
 
+  def apply(path: String, profile: MetricProfile) = {
+    new JavaMeasurement(path, profile)
+  }
 
-  /*
-   * Structural analysis visitor with structure child visitors
-   * Hint: Add additional sub-visitors to acquire metrics based on the internal file structure.
-   */
-  private val structureVisitor = new StructureVisitor(compilationUnitDescriptor, helper)
-  addVisitor(structureVisitor)
+  def apply(path: String, profile: MetricProfile, budget: ParseBudget) = {
+    new JavaMeasurement(path, profile, budget)
+  }
 
-  // Compilation unit visitors
-  //structureVisitor.addVisitorFactory(ArtifactType.COMPILATION_UNIT, CommentVisitor)
+  /** The lines of a declaration, both inclusive. The compilation unit spans all lines. */
+  private case class Span(declaration: Int, artifactType: ArtifactType, artifact: Option[String], first: Int,
+                          last: Int)
+}
 
-  // Class visitors
-  structureVisitor.addVisitorFactory(ArtifactType.CLASS, NcscssVisitor)
+/**
+ * Analysis of a single java source file.
+ *
+ * The measurement does not access the store, all results are returned as a `SourceStructure`. Hence, it is safe
+ * to run measurements of different files concurrently. The visitors measuring the declarations are given by a
+ * [[MetricProfile]], which also tells the declarations whose lines and comments are counted. Sources
+ * exceeding the [[ParseBudget]] are degraded to their declarations, which are not measured.
+ */
+class JavaMeasurement(path: String, profile: MetricProfile, budget: ParseBudget) extends AstAnalyzer {
+  import JavaMeasurement.{Span, logger}
 
-  // Inner Class visitors
-  structureVisitor.addVisitorFactory(ArtifactType.INNER_CLASS, NcscssVisitor)
+  def this(path: String, profile: MetricProfile) = this(path, profile, ParseBudget.Unlimited)
 
-  // Anonymous Inner Class visitors
-  structureVisitor.addVisitorFactory(ArtifactType.ANON_INNER_CLASS, NcscssVisitor)
+  def this(path: String) = this(path, MetricProfile.Default)
 
-  // Interface visitors
-  structureVisitor.addVisitorFactory(ArtifactType.INTERFACE, NcscssVisitor)
+  override def parseBudget = budget
 
-  // Enumeration visitors
-  structureVisitor.addVisitorFactory(ArtifactType.ENUM, NcscssVisitor)
+  override def countsLines = profile.counts(MetricProfile.LineCounts)
 
-  // Inner enumeration visitors
-  structureVisitor.addVisitorFactory(ArtifactType.INNER_ENUM, NcscssVisitor)
+  override def countsComments = profile.counts(MetricProfile.CommentCounts)
 
-  // Annotation visitors
-  structureVisitor.addVisitorFactory(ArtifactType.ANNOTATION, NcscssVisitor)
+  // Collects all declarations in the order they have been detected
+  private val declarations = SourceStructure.newBuilder
 
-  // Constructor visitors
-  structureVisitor.addVisitorFactory(ArtifactType.CONSTRUCTOR, NcscssVisitor)
-  structureVisitor.addVisitorFactory(ArtifactType.CONSTRUCTOR, CyclomaticComplexityVisitor)
-  structureVisitor.addVisitorFactory(ArtifactType.CONSTRUCTOR, NPathComplexityVisitor)
 
-  // Method visitors
-  structureVisitor.addVisitorFactory(ArtifactType.METHOD, NcscssVisitor)
-  structureVisitor.addVisitorFactory(ArtifactType.METHOD, CyclomaticComplexityVisitor)
-  structureVisitor.addVisitorFactory(ArtifactType.METHOD, NPathComplexityVisitor)
+  /*
+   * Structural analysis visitor with structure child visitors
+   * Hint: Add additional sub-visitors to a metric profile to acquire metrics based on the internal file structure.
+   */
+  private val structureVisitor = new StructureVisitor(path, declarations)
+  addVisitor(structureVisitor)
 
-  // EnumConstant visitors
-  structureVisitor.addVisitorFactory(ArtifactType.ENUM_CONST, NcscssVisitor)
+  for (artifactType <- ArtifactType.values; factory <- profile.factoriesFor(artifactType)) {
+    structureVisitor.addVisitorFactory(artifactType, factory)
+  }
 
 
   /*
    * Package visitor
    */
-  val packageVisitor = new PackageVisitor(helper, compilationUnitDescriptor)
+  val packageVisitor = new PackageVisitor
   addVisitor(packageVisitor)
 
   /*
    * Import visitor
    */
-  val importVisitor = new ImportVisitor(helper, compilationUnitDescriptor)
+  val importVisitor = new ImportVisitor(declarations)
   addVisitor(importVisitor)
 
-  def run() = try {
-    val reader = new InputStreamReader(item.createStream())
-    runWith(reader)
-    structureVisitor.evaluateSubstructureVisitors()
-    compilationUnitDescriptor
+  override protected def degrade(reason: String): Unit = {
+    logger.warn(s"Analyzing only the declarations of $path: $reason")
+    structureVisitor.clearVisitorFactories()
+  }
+
+  def run(src: Reader): SourceStructure = result(runWith(src))
+
+  def run(input: CharStream): SourceStructure = result(runWith(input))
+
+  private def result(analysis: => Unit): SourceStructure = try {
+    analysis
+    val measures = structureVisitor.evaluateSubstructureVisitors()
+    val structure = declarations.result(measures, degradation = degradation)
+    val counted = if (degradation.isDefined) structure else withCounts(structure)
+    if (times != null) times.evaluation += times.lap()
+    counted
+  } catch {
+    case NonFatal(e) => declarations.result(Map.empty, Some(e), degradation)
   }
 
+  /** Add the line and comment counts of all declarations of the artifact types counted by the profile. */
+  private def withCounts(structure: SourceStructure): SourceStructure = {
+    val all = spans(structure)
+    val counted = lines.toVector.flatMap(lineCounts(all, _)) ++ comments.toVector.flatMap(commentCounts(all, _))
+    structure.copy(measures = counted.foldLeft(structure.measures) { case (measured, (i, values)) =>
+      measured.updated(i, measured.getOrElse(i, Vector()) ++ values)
+    })
+  }
+
+  /** Return the lines of code and the lines of the spans whose artifact types are counted. */
+  private def lineCounts(spans: Vector[Span], lines: LineSet): Vector[(Int, Vector[Value])] = {
+    for (span <- spans if profile.counts(MetricProfile.LineCounts, span.artifactType)) yield {
+      val last = math.min(span.last, lines.lines)
+      span.declaration -> Vector(
+        Value(span.artifact, Measure.LOC, lines.count(span.first, last)),
+        Value(span.artifact, Measure.LINES, last - span.first + 1))
+    }
+  }
+
+  /**
+   * Return the comment counts of the spans whose artifact types are counted. Each comment is attributed to the
+   * innermost span containing its anchor, by a single sweep over the comments and the spans ordered by their first
+   * line. Spans contain each other or do not overlap, so the spans containing the current anchor form a stack.
+   */
+  private def commentCounts(spans: Vector[Span], comments: CommentSet): Vector[(Int, Vector[Value])] = {
+    val ordered = spans.sortBy(_.first)
+    val counts = ordered.map { span =>
+      if (profile.counts(MetricProfile.CommentCounts, span.artifactType)) new CommentCounts else null
+    }
+    val open = new collection.mutable.ArrayStack[Int]
+    var next = 0
+    for (i <- 0 until comments.size) {
+      val anchor = comments.anchor(i)
+      while (next < ordered.size && ordered(next).first <= anchor) {
+        while (open.nonEmpty && ordered(open.top).last < ordered(next).first) open.pop()
+        open.push(next)
+        next += 1
+      }
+      while (open.nonEmpty && ordered(open.top).last < anchor) open.pop()
+      if (open.nonEmpty && counts(open.top) != null) counts(open.top).add(comments, i)
+    }
+    for ((span, count) <- ordered.zip(counts) if count != null) yield {
+      span.declaration -> count.measuredValues(span.artifact)
+    }
+  }
+
+  /** Return the line spans of the compilation unit, the types and the functions of the given structure. */
+  private def spans(structure: SourceStructure): Vector[Span] = structure.declarations.zipWithIndex.collect {
+    case (CompilationUnitDeclaration, i) =>
+      Span(i, ArtifactType.COMPILATION_UNIT, None, 1, Int.MaxValue)
+    case (d: TypeDeclaration, i) =>
+      Span(i, d.artifactType, Some(d.fullQualifiedName), d.startLine, d.endLine)
+    case (d: AnonymousClassDeclaration, i) =>
+      Span(i, ArtifactType.ANON_INNER_CLASS, Some(d.fullQualifiedName), d.startLine, d.endLine)
+    case (d: EnumConstantDeclaration, i) =>
+      Span(i, ArtifactType.ENUM_CONST, Some(d.fullQualifiedName), d.startLine, d.endLine)
+    case (d: FunctionDeclaration, i) =>
+      Span(i, d.artifactType, Some(d.signature), d.startLine, d.endLine)
+  }.toVector
+
 }
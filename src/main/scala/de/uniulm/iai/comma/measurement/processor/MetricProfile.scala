@@ -0,0 +1,178 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.measurement.processor
+
+import de.uniulm.iai.comma.measurement.ast._
+import de.uniulm.iai.comma.model.ArtifactType
+import de.uniulm.iai.comma.model.ArtifactType._
+
+object MetricProfile {
+
+  /** Visitor factories by the names used in profiles and exclusions. */
+  val Visitors: Map[String, TreeVisitorFactory] = Map(
+    "ncscss" -> NcscssVisitor,
+    "cyclomatic" -> CyclomaticComplexityVisitor,
+    "npath" -> NPathComplexityVisitor)
+
+  /**
+   * Name of the line counts in profiles and exclusions. Lines are not counted by a visitor but from the tokens of a
+   * source, see [[de.uniulm.iai.comma.measurement.ast.LineSet]].
+   */
+  val LineCounts = "sloc"
+
+  /**
+   * Name of the comment counts in profiles and exclusions. Comments are not counted by a visitor but attributed to
+   * the declarations by their lines, see [[de.uniulm.iai.comma.measurement.ast.CommentSet]].
+   */
+  val CommentCounts = "comment"
+
+  /**
+   * Name of the fan-out counts in profiles and exclusions. The fan-out is not counted by a visitor but from the
+   * resolved types of the fields and parameters once the structure is written, see
+   * [[de.uniulm.iai.comma.measurement.ast.FanOutComplexityVisitor.isSignificant]].
+   */
+  val FanOutCounts = "fanout"
+
+  private val Counts = Vector(LineCounts, CommentCounts, FanOutCounts)
+
+  private val Types = Vector(CLASS, INNER_CLASS, ANON_INNER_CLASS, INTERFACE, INNER_INTERFACE, ENUM, INNER_ENUM,
+    ANNOTATION, INNER_ANNOTATION)
+
+  private val Functions = Vector(CONSTRUCTOR, METHOD)
+
+  /** Declarations only, no visitor measures anything. */
+  val StructureOnly = MetricProfile("structure-only", Map.empty)
+
+  /**
+   * NCSCSS of all declarations except inner interfaces and annotations, complexities of all functions, lines of code
+   * of the compilation unit, all types and functions.
+   */
+  val Default = StructureOnly.copy(name = "default")
+    .including("ncscss", CLASS, INNER_CLASS, ANON_INNER_CLASS, INTERFACE, ENUM, INNER_ENUM, ANNOTATION, CONSTRUCTOR,
+      METHOD, ENUM_CONST)
+    .including("cyclomatic", Functions: _*)
+    .including("npath", Functions: _*)
+    .including(LineCounts, COMPILATION_UNIT +: (Types ++ Functions): _*)
+
+  /** The default profile with comments and fan-out of all types and functions, comments of the compilation unit. */
+  val Full = Default.copy(name = "full")
+    .including(CommentCounts, COMPILATION_UNIT +: (Types ++ Functions): _*)
+    .including(FanOutCounts, Types ++ Functions: _*)
+
+  val Profiles = Vector(StructureOnly, Default, Full)
+
+  /**
+   * Return the profile with the given name.
+   *
+   * @throws IllegalArgumentException If there is no such profile.
+   */
+  def apply(name: String): MetricProfile = Profiles.find(_.name == name).getOrElse {
+    throw new IllegalArgumentException(s"Unknown metric profile '$name', expected one of " +
+      Profiles.map(_.name).mkString(", "))
+  }
+
+  private def visitor(name: String): TreeVisitorFactory = Visitors.getOrElse(name,
+    throw new IllegalArgumentException(s"Unknown visitor '$name', expected one of " +
+      (Counts ++ Visitors.keys).sorted.mkString(", ")))
+
+  private def artifactType(name: String): ArtifactType = ArtifactType.values.find(_.toString == name).getOrElse(
+    throw new IllegalArgumentException(s"Unknown artifact type '$name', expected one of " +
+      ArtifactType.values.mkString(", ")))
+}
+
+
+/**
+ * The visitor factories applied to each artifact type by a [[JavaMeasurement]]. Visitors not contained in the
+ * profile are never created, so none of their code runs.
+ *
+ * @param name
+ *                  The name of the profile.
+ * @param factories
+ *                  The visitor factories by artifact type, in the order they are applied.
+ * @param counted
+ *                  The artifact types whose lines, comments or used types are counted, by the name of the counts, e.g.
+ *                  [[MetricProfile.LineCounts]].
+ */
+case class MetricProfile(name: String, factories: Map[ArtifactType, Vector[TreeVisitorFactory]],
+                         counted: Map[String, Set[ArtifactType]] = Map.empty) {
+  import MetricProfile._
+
+  /** Return the factories applied to the given artifact type. */
+  def factoriesFor(artifactType: ArtifactType): Vector[TreeVisitorFactory] = factories.getOrElse(artifactType, Vector())
+
+  /** Tells if the given counts are taken of any artifact type. */
+  def counts(countsName: String): Boolean = counted.get(countsName).exists(_.nonEmpty)
+
+  /** Tells if the given counts are taken of the given artifact type. */
+  def counts(countsName: String, artifactType: ArtifactType): Boolean =
+    counted.get(countsName).exists(_.contains(artifactType))
+
+  /**
+   * Describe the visitors and counts applied to each artifact type, in a stable order. Profiles measuring the same
+   * have the same description, no matter their names or how they have been composed.
+   */
+  lazy val description: String = {
+    val visitors = for ((artifactType, all) <- factories.toSeq; factory <- all)
+      yield Visitors.collectFirst { case (name, f) if f == factory => name }.get -> artifactType
+    val counts = for ((countsName, artifactTypes) <- counted.toSeq; artifactType <- artifactTypes)
+      yield countsName -> artifactType
+    (visitors ++ counts).groupBy(_._1).toSeq.sortBy(_._1).map { case (name, applied) =>
+      name + "=" + applied.map(_._2.toString).sorted.mkString(",")
+    }.mkString(";")
+  }
+
+  /** Return this profile with the given visitor or counts applied to the given artifact types. */
+  def including(visitorName: String, artifactTypes: ArtifactType*): MetricProfile = {
+    if (Counts.contains(visitorName)) {
+      copy(counted = counted.updated(visitorName, counted.getOrElse(visitorName, Set()) ++ artifactTypes))
+    } else {
+      val factory = visitor(visitorName)
+      copy(factories = artifactTypes.foldLeft(factories) { (all, artifactType) =>
+        val current = all.getOrElse(artifactType, Vector())
+        if (current.contains(factory)) all else all.updated(artifactType, current :+ factory)
+      })
+    }
+  }
+
+  /**
+   * Return this profile without the given visitors. Each exclusion is either the name of a visitor, which removes
+   * it from all artifact types, or an artifact type and a visitor name separated by a colon, e.g. `METHOD:npath`.
+   */
+  def excluding(exclusions: Seq[String]): MetricProfile = {
+    exclusions.foldLeft(this) { (profile, exclusion) =>
+      exclusion.split(':').map(_.trim) match {
+        case Array(countsName) if Counts.contains(countsName) =>
+          profile.copy(counted = profile.counted - countsName)
+        case Array(typeName, countsName) if Counts.contains(countsName) =>
+          val excludedType = artifactType(typeName)
+          profile.copy(counted = profile.counted.updated(countsName,
+            profile.counted.getOrElse(countsName, Set()) - excludedType))
+        case Array(visitorName) =>
+          val factory = visitor(visitorName.trim)
+          profile.copy(factories = profile.factories.map { case (t, all) => t -> all.filterNot(_ == factory) })
+        case Array(typeName, visitorName) =>
+          val factory = visitor(visitorName.trim)
+          val excludedType = artifactType(typeName.trim)
+          profile.copy(factories = profile.factories.updated(excludedType,
+            profile.factoriesFor(excludedType).filterNot(_ == factory)))
+        case _ =>
+          throw new IllegalArgumentException(s"Invalid visitor exclusion '$exclusion'")
+      }
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.model
+
+import scala.collection.mutable
+
+
+/**
+ * A declaration found by the structural analysis of a compilation unit.
+ *
+ * Declarations reference their enclosing structure by its index within the declaration list of the
+ * `SourceStructure`, so they can be recorded without touching the store and written afterwards.
+ */
+sealed trait Declaration
+
+/** The compilation unit itself, always the first declaration if the file could be parsed. */
+case object CompilationUnitDeclaration extends Declaration
+
+case class ImportDeclaration(fullQualifiedName: String) extends Declaration
+
+/** A class, interface, enum or annotation. Outer types do not have a parent. */
+case class TypeDeclaration(
+    artifactType: ArtifactType,
+    fullQualifiedName: String,
+    name: String,
+    parent: Option[Int],
+    startLine: Int,
+    endLine: Int,
+    visibility: Visibility,
+    isFinal: Boolean,
+    isStatic: Boolean,
+    isAbstract: Boolean,
+    isMainType: Boolean) extends Declaration
+
+case class AnonymousClassDeclaration(
+    fullQualifiedName: String,
+    index: Int,
+    parent: Int,
+    startLine: Int,
+    endLine: Int) extends Declaration
+
+case class EnumConstantDeclaration(
+    fullQualifiedName: String,
+    parent: Int,
+    startLine: Int,
+    endLine: Int) extends Declaration
+
+/**
+ * A constructor or a method, distinguished by the artifact type. The parameter types are the types of all parameters
+ * including their type arguments, named as written in the source.
+ */
+case class FunctionDeclaration(
+    artifactType: ArtifactType,
+    signature: String,
+    name: String,
+    parent: Int,
+    startLine: Int,
+    endLine: Int,
+    visibility: Visibility,
+    isFinal: Boolean,
+    isStatic: Boolean,
+    isAbstract: Boolean,
+    parameterTypes: IndexedSeq[String]) extends Declaration
+
+/** A field, its type and the types of its type arguments are named as written in the source. */
+case class FieldDeclaration(
+    signature: String,
+    typeName: String,
+    typeArguments: IndexedSeq[String],
+    parent: Int,
+    startLine: Int,
+    visibility: Visibility,
+    isFinal: Boolean,
+    isStatic: Boolean,
+    isTransient: Boolean,
+    isVolatile: Boolean) extends Declaration
+
+
+/**
+ * In-memory result of the analysis of a single compilation unit.
+ *
+ * @param declarations
+ *    All declarations in the order they have been detected.
+ * @param measures
+ *    Measured values, keyed by the index of the declaration they belong to.
+ * @param failure
+ *    Set if the analysis aborted. The declarations found up to that point are still part of the result, measures
+ *    are not.
+ * @param degradation
+ *    Set if the source exceeded its parse budget and only its declarations have been analyzed, tells why. Neither
+ *    the bodies of functions nor the types declared within them are part of the result.
+ */
+case class SourceStructure(
+    declarations: IndexedSeq[Declaration],
+    measures: Map[Int, Iterable[Value]],
+    failure: Option[Throwable] = None,
+    degradation: Option[String] = None)
+
+object SourceStructure {
+
+  def newBuilder = new Builder
+
+  class Builder {
+    private val declarations = mutable.ArrayBuffer.empty[Declaration]
+
+    /** Add a declaration and return its index. */
+    def add(declaration: Declaration): Int = {
+      declarations += declaration
+      declarations.size - 1
+    }
+
+    def result(measures: Map[Int, Iterable[Value]], failure: Option[Throwable] = None,
+               degradation: Option[String] = None) =
+      SourceStructure(declarations.toVector, measures, failure, degradation)
+  }
+}
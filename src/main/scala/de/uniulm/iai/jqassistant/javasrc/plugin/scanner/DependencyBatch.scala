@@ -0,0 +1,41 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.scanner
+
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.{JavaCompilationUnitDescriptor, TypeDescriptor}
+
+import scala.collection.mutable
+
+
+/**
+ * Collects the types required by a compilation unit and the dependencies of its types while the compilation unit is
+ * written, and adds the relations once it is finished.
+ *
+ * A compilation unit is either new or has been cleared before it is written, so its required types only need to be
+ * distinct among each other. Dependencies of types are deduplicated by the cached types, see
+ * [[ScannerHelper.resolveType]]. Relations are added in the order they have been collected.
+ */
+class DependencyBatch {
+
+  private val requiredTypes = mutable.LinkedHashSet.empty[TypeDescriptor]
+
+  private val dependencies = mutable.LinkedHashMap.empty[TypeDescriptor, mutable.ArrayBuffer[TypeDescriptor]]
+
+  /** Add a type required by the compilation unit, types already added are ignored. */
+  def require(typeDescriptor: TypeDescriptor): Unit = requiredTypes += typeDescriptor
+
+  /** Add a dependency of a type, which must not have been added before. */
+  def dependOn(dependentType: TypeDescriptor, dependency: TypeDescriptor): Unit = {
+    dependencies.getOrElseUpdate(dependentType, mutable.ArrayBuffer.empty) += dependency
+  }
+
+  /** Add all collected relations to the store. */
+  def write(compilationUnit: JavaCompilationUnitDescriptor): Unit = {
+    val requires = compilationUnit.getRequiresTypes
+    requiredTypes.foreach(requires.add)
+    for ((dependentType, types) <- dependencies) {
+      val dependsOn = dependentType.getDependencies
+      types.foreach(dependsOn.add)
+    }
+    requiredTypes.clear()
+    dependencies.clear()
+  }
+}
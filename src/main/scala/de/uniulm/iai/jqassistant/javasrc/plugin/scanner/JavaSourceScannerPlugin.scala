@@ -1,28 +1,329 @@
 package de.uniulm.iai.jqassistant.javasrc.plugin.scanner
 
-import java.io.InputStreamReader
+import java.io.File
+import java.nio.charset.{Charset, StandardCharsets}
+import java.nio.file.Files
+import java.util.concurrent.{Callable, FutureTask}
 
 import com.buschmais.jqassistant.core.scanner.api.{Scanner, Scope}
 import com.buschmais.jqassistant.plugin.common.api.scanner.AbstractScannerPlugin
-import com.buschmais.jqassistant.plugin.common.api.scanner.filesystem.FileResource
-import de.uniulm.iai.comma.measurement.processor.JavaMeasurement
-import de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner.JavaSourceScope
+import com.buschmais.jqassistant.plugin.common.api.scanner.filesystem.{AbstractFileResource, FileResource}
+import com.google.common.hash.Hashing
+import de.uniulm.iai.comma.measurement.ast.{AnalysisTimes, ParseBudget}
+import de.uniulm.iai.comma.measurement.processor.{JavaMeasurement, MetricProfile}
+import de.uniulm.iai.comma.model.SourceStructure
+import de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner.ScanStatistics.Stage
+import de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner._
 import de.uniulm.iai.jqassistant.javasrc.plugin.model.JavaCompilationUnitDescriptor
 
+object JavaSourceScannerPlugin {
+
+  /** Number of threads analyzing source files, a value of 1 analyzes each file on the scanner thread. */
+  val WorkersProperty = "javasrc.scan.workers"
+
+  /** Number of analysis results per worker which may wait to be written before the scanner blocks. */
+  val PendingPerWorker = 4
+
+  /**
+   * Number of written compilation units after which the running transaction is committed and a new one is begun.
+   * The transaction is the one of the caller, which is committed as well. Disabled by default, i.e. a value of 0
+   * keeps all writes in the transaction of the caller.
+   */
+  val CommitIntervalProperty = "javasrc.scan.commitInterval"
+
+  /** Maximum number of types kept by the type cache. */
+  val TypeCacheSizeProperty = "javasrc.typeCache.maximumSize"
+
+  /**
+   * Maximum total weight of the types kept by the type cache, takes precedence over the maximum size. Each type weighs
+   * 1 plus the number of its members and dependencies known to the cache, see [[TypeCache]].
+   */
+  val TypeCacheWeightProperty = "javasrc.typeCache.maximumWeight"
+
+  /**
+   * Read the names of all types of the store before the first file is scanned, so unknown types are created without
+   * looking them up. Must only be enabled if no other scanner plugin creates types during the scan.
+   */
+  val PreloadTypeIndexProperty = "javasrc.typeIndex.preload"
+
+  /** Charset of source files without a byte order mark, defaults to the charset of the platform. */
+  val EncodingProperty = "javasrc.source.encoding"
+
+  /**
+   * Name of the metric profile selecting the visitors measuring the declarations, one of `structure-only`, `default`
+   * and `full`, see [[MetricProfile]].
+   */
+  val MetricProfileProperty = "javasrc.metrics.profile"
+
+  /**
+   * Comma separated visitors to remove from the metric profile, either by name, e.g. `npath`, or for a single
+   * artifact type only, e.g. `METHOD:npath`.
+   */
+  val MetricExclusionsProperty = "javasrc.metrics.exclude"
+
+  /**
+   * Record the time spent in each stage of the scan and the resolution counts, exposed as MBean while scanning and
+   * logged once the scope is destroyed, see [[ScanStatistics]].
+   */
+  val StatisticsProperty = "javasrc.scan.statistics"
+
+  /**
+   * Maximum number of tokens of a source file. Larger files are only scanned for their declarations, without the
+   * bodies of their functions and without measures. The compilation unit records the degradation. Not limited by
+   * default.
+   */
+  val MaxTokensProperty = "javasrc.parse.maxTokens"
+
+  /**
+   * Maximum time in milliseconds to parse a source file. Files taking longer are parsed again for their declarations
+   * only, see [[MaxTokensProperty]]. Not limited by default.
+   */
+  val MaxParseTimeProperty = "javasrc.parse.maxTime"
+
+  /**
+   * Version of the analysis, part of the fingerprint. Must be increased whenever the graph written for an unchanged
+   * source file changes, so compilation units written by an older version are analyzed again.
+   */
+  private val AnalysisVersion = 3
+
+  /** Return the fingerprint of the given configuration, see [[JavaCompilationUnitDescriptor.getFingerprint]]. */
+  private def fingerprintOf(metricProfile: MetricProfile, parseBudget: ParseBudget): String = {
+    val configuration = s"${metricProfile.description};tokens=${parseBudget.maxTokens};time=${parseBudget.maxMillis}" +
+      s";version=$AnalysisVersion"
+    Hashing.md5.hashString(configuration, StandardCharsets.UTF_8).toString
+  }
+}
+
 /**
  * Implementation of the {@link AbstractScannerPlugin} for java source code.
  *
+ * If more than one worker is configured, source files are analyzed on a bounded worker pool. The results are
+ * written to the store by the scanner thread in the order the files have been scanned, the last ones once the
+ * {@link JavaSourceScope} is destroyed, which stops the workers as well. A file failing to be analyzed or written
+ * is logged and skipped, no matter how many workers are configured.
+ *
+ * Compilation units already contained in the store are only analyzed again if the content of their source file or
+ * the configuration of the analysis has changed, otherwise the existing subgraph is kept. They are identified by the
+ * path and the location of their source file. A compilation unit is up to date only once its analysis has been
+ * written, so one failing to be analyzed is analyzed again by the next scan.
+ *
+ * Each commit of the store is expensive, yet the state of a transaction grows with every write. Hence, the running
+ * transaction may be committed once a configured number of compilation units has been written. This commits the
+ * transaction of the caller, so intermediate commits are only made if enabled, see [[CommitIntervalProperty]].
+ *
  * @author Steffen Kram
  */
 class JavaSourceScannerPlugin extends AbstractScannerPlugin[FileResource, JavaCompilationUnitDescriptor] {
+  import JavaSourceScannerPlugin._
+
+  private var workers = 1
+
+  private var commitInterval = 0
+
+  private var writtenSinceCommit = 0
+
+  private var typeCacheSize = TypeCache.DEFAULT_MAXIMUM_SIZE
+
+  private var typeCacheWeight = 0L
+
+  private var preloadTypeIndex = false
+
+  private var encoding = Charset.defaultCharset
+
+  private var metricProfile = MetricProfile.Default
+
+  private var statisticsEnabled = false
+
+  private var parseBudget = ParseBudget.Unlimited
+
+  private var fingerprint = fingerprintOf(metricProfile, parseBudget)
+
+  /** The type resolver configured last, each scope creates a new one. */
+  private var configuredResolver: TypeResolver = null
+
+  override protected def configure(): Unit = {
+    workers = Option(getProperties.get(WorkersProperty)).map(_.toString.trim.toInt).getOrElse(1)
+    require(workers > 0, s"$WorkersProperty must be positive")
+    commitInterval = Option(getProperties.get(CommitIntervalProperty)).map(_.toString.trim.toInt).getOrElse(0)
+    require(commitInterval >= 0, s"$CommitIntervalProperty must not be negative")
+    typeCacheSize = longProperty(TypeCacheSizeProperty).getOrElse(TypeCache.DEFAULT_MAXIMUM_SIZE)
+    typeCacheWeight = longProperty(TypeCacheWeightProperty).getOrElse(0L)
+    require(typeCacheSize > 0, s"$TypeCacheSizeProperty must be positive")
+    require(typeCacheWeight >= 0, s"$TypeCacheWeightProperty must not be negative")
+    preloadTypeIndex = Option(getProperties.get(PreloadTypeIndexProperty)).exists(_.toString.trim.toBoolean)
+    encoding = Option(getProperties.get(EncodingProperty)).map(e => Charset.forName(e.toString.trim))
+      .getOrElse(Charset.defaultCharset)
+    metricProfile = Option(getProperties.get(MetricProfileProperty)).map(p => MetricProfile(p.toString.trim))
+      .getOrElse(MetricProfile.Default)
+      .excluding(Option(getProperties.get(MetricExclusionsProperty)).toSeq
+        .flatMap(_.toString.split(',')).map(_.trim).filter(_.nonEmpty))
+    statisticsEnabled = Option(getProperties.get(StatisticsProperty)).exists(_.toString.trim.toBoolean)
+    parseBudget = ParseBudget(Option(getProperties.get(MaxTokensProperty)).map(_.toString.trim.toInt).getOrElse(0),
+      longProperty(MaxParseTimeProperty).getOrElse(0L))
+    fingerprint = fingerprintOf(metricProfile, parseBudget)
+  }
+
+  private def longProperty(name: String): Option[Long] = {
+    Option(getProperties.get(name)).map(_.toString.trim.toLong)
+  }
 
   override def accepts(item: FileResource, path: String, scope: Scope): Boolean = {
     JavaSourceScope.CLASSPATH.equals(scope) && path.toLowerCase.endsWith(".java")
   }
 
   override def scan(item: FileResource, path: String, scope: Scope, scanner: Scanner): JavaCompilationUnitDescriptor = {
+    configureScope(scanner)
+    val statistics = scanner.getContext.peek(classOf[ScanStatistics])
+    if (statistics.isEnabled) statistics.scanned()
     val helper = ScannerHelper(scanner.getContext)
-    val reader = new InputStreamReader(item.createStream())
-    JavaMeasurement(helper, item, path).run()
+    val file = item.getFile
+    val existing = helper.findCompilationUnit(path, location(file))
+    // Compilation units analyzed with another configuration are analyzed again
+    val previous = existing.filter(compilationUnit => fingerprint == compilationUnit.getFingerprint)
+
+    previous.filter(cu => cu.getSize == file.length && cu.getLastModified == file.lastModified) match {
+      case Some(compilationUnit) =>
+        compilationUnit
+
+      case None =>
+        val source = timed(statistics, Stage.READ)(readSource(file))
+        val md5 = Hashing.md5.hashBytes(source).toString
+        previous match {
+          case Some(compilationUnit) if md5 == compilationUnit.getMd5 =>
+            updateFileInfo(compilationUnit, file)
+            compilationUnit
+
+          case _ =>
+            val compilationUnit = existing match {
+              case Some(changed) =>
+                // Pending writes may still reference the types of the changed compilation unit
+                scanner.getContext.peek(classOf[PendingWriteQueue]).flush()
+                CompilationUnitRemover.clear(changed, scanner.getContext)
+                // The compilation unit is not up to date until the analysis has been written
+                changed.setMd5(null)
+                changed.setFingerprint(null)
+                changed
+              case None =>
+                val created = helper.createCompilationUnit(path, file.getName)
+                location(file).foreach(created.setLocation)
+                created
+            }
+            analyze(path, source, compilationUnit, StructureWriter(helper, metricProfile), scanner, statistics) {
+              compilationUnit.setMd5(md5)
+              compilationUnit.setFingerprint(fingerprint)
+              updateFileInfo(compilationUnit, file)
+            }
+            compilationUnit
+        }
+    }
+  }
+
+  /**
+   * Analyze the source and write the result, then mark the compilation unit as up to date. If analyzing or writing
+   * fails, the failure is logged and the compilation unit is analyzed again by the next scan.
+   */
+  private def analyze(path: String, source: Array[Byte], compilationUnit: JavaCompilationUnitDescriptor,
+                      writer: StructureWriter, scanner: Scanner, statistics: ScanStatistics)(written: => Unit): Unit = {
+    val pendingWrites = scanner.getContext.peek(classOf[PendingWriteQueue])
+    val analysis = new Callable[Runnable] {
+      override def call(): Runnable = {
+        val structure = measure(path, source, statistics)
+        new Runnable {
+          override def run(): Unit = {
+            write(writer, structure, compilationUnit, scanner, statistics)
+            written
+          }
+        }
+      }
+    }
+    if (workers > 1) {
+      pendingWrites.add(path, pendingWrites.getExecutor(workers).submit(analysis))
+      pendingWrites.flush(workers * PendingPerWorker)
+    } else {
+      // Analyzed on the scanner thread, but written by the queue, so failures are handled the same way
+      val task = new FutureTask(analysis)
+      task.run()
+      pendingWrites.add(path, task)
+      pendingWrites.flush()
+    }
   }
+
+  /** Decode and analyze the source, recording the time of each stage if the statistics are enabled. */
+  private def measure(path: String, source: Array[Byte], statistics: ScanStatistics): SourceStructure = {
+    val measurement = JavaMeasurement(path, metricProfile, parseBudget)
+    if (!statistics.isEnabled) {
+      measurement.run(SourceDecoder.decode(source, encoding))
+    } else {
+      val times = new AnalysisTimes
+      measurement.recordTimes(times)
+      val structure = measurement.run(timed(statistics, Stage.DECODE)(SourceDecoder.decode(source, encoding)))
+      statistics.analyzed(source.length)
+      if (structure.degradation.isDefined) statistics.degraded()
+      statistics.record(Stage.LEX, times.lex)
+      statistics.record(Stage.PARSE, times.parse)
+      statistics.record(Stage.COMMENTS, times.comments)
+      statistics.record(Stage.WALK, times.walk)
+      statistics.record(Stage.EVALUATION, times.evaluation)
+      structure
+    }
+  }
+
+  /** Evaluate the given block, adding its time to the given stage if the statistics are enabled. */
+  private def timed[A](statistics: ScanStatistics, stage: Stage)(block: => A): A = {
+    if (!statistics.isEnabled) block else {
+      val start = System.nanoTime
+      try block finally statistics.record(stage, System.nanoTime - start)
+    }
+  }
+
+  /**
+   * Apply the configured size limits to the type cache of the current scope, preload the type index and enable the
+   * statistics if configured, before the type resolver is used the first time.
+   */
+  private def configureScope(scanner: Scanner): Unit = {
+    val resolver = scanner.getContext.peek(classOf[TypeResolver])
+    if (resolver ne configuredResolver) {
+      if (statisticsEnabled) scanner.getContext.peek(classOf[ScanStatistics]).enable()
+      resolver.getTypeCache.configure(typeCacheSize, typeCacheWeight)
+      if (preloadTypeIndex) resolver.preloadTypeIndex(scanner.getContext)
+      configuredResolver = resolver
+    }
+  }
+
+  /** Write the analysis result and commit the running transaction if the commit interval has been reached. */
+  private def write(writer: StructureWriter, structure: SourceStructure, compilationUnit: JavaCompilationUnitDescriptor,
+                    scanner: Scanner, statistics: ScanStatistics): Unit = {
+    try timed(statistics, Stage.WRITE)(writer.write(structure, compilationUnit)) finally {
+      writtenSinceCommit += 1
+      if (commitInterval > 0 && writtenSinceCommit >= commitInterval) {
+        val store = scanner.getContext.getStore
+        store.commitTransaction()
+        store.beginTransaction()
+        writtenSinceCommit = 0
+      }
+    }
+  }
+
+  /**
+   * Remember size and modification time of the source file, so it is not read again by the next scan unless it
+   * has been touched.
+   */
+  private def updateFileInfo(compilationUnit: JavaCompilationUnitDescriptor, file: File): Unit = {
+    compilationUnit.setSize(file.length)
+    compilationUnit.setLastModified(file.lastModified)
+  }
+
+  /**
+   * Return the absolute path of the source file. Files extracted to temporary files, e.g. from archives, do not have
+   * a permanent location.
+   */
+  private def location(file: File): Option[String] = {
+    if (file.getName.endsWith(AbstractFileResource.TMP_FILE_SUFFIX)) None else Some(file.getAbsolutePath)
+  }
+
+  /**
+   * Read the source on the scanner thread, the resource might not be accessible after scanning it. The file is read
+   * into an array of its size, the analysis decodes it with the configured charset, see [[SourceDecoder]].
+   */
+  private def readSource(file: File): Array[Byte] = Files.readAllBytes(file.toPath)
 }
@@ -1,7 +1,7 @@
 package de.uniulm.iai.jqassistant.javasrc.plugin.scanner
 
 import com.buschmais.jqassistant.core.scanner.api.ScannerContext
-import de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner.{TypeResolver, TypeCache}
+import de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner.{ScanStatistics, TypeResolver, TypeCache}
 import de.uniulm.iai.jqassistant.javasrc.plugin.model._
 
 
@@ -25,34 +25,61 @@ class ScannerHelper(scannerContext: ScannerContext) {
     compilationUnit
   }
 
-  /** Return the type descriptor for the given import name. */
-  def resolveImport(fullQualifiedName: String, dependentCompilationUnit: JavaCompilationUnitDescriptor):
-      TypeCache.CachedType[TypeDescriptor] = {
-    val cachedType = typeResolver.resolve(fullQualifiedName, scannerContext)
-    if (!dependentCompilationUnit.getRequiresTypes.contains(cachedType.getTypeDescriptor)) {
-      dependentCompilationUnit.getRequiresTypes.add(cachedType.getTypeDescriptor)
-    }
+  /**
+   * Return the compilation unit scanned by a previous run from the given path and location, if any. The same path
+   * may occur below several roots, e.g. in different modules, so the location of the file tells them apart. Files
+   * without a permanent location, e.g. extracted from archives, are never found.
+   */
+  def findCompilationUnit(fullQualifiedName: String, location: Option[String]):
+      Option[JavaCompilationUnitDescriptor] = location.flatMap { absolutePath =>
+    val parameters = new java.util.HashMap[String, AnyRef]()
+    parameters.put("fqn", fullQualifiedName)
+    parameters.put("location", absolutePath)
+    val result = scannerContext.getStore.executeQuery(
+      "match (cu:JavaCompilationUnit) where cu.fqn={fqn} and cu.location={location} return cu", parameters)
+    try {
+      val rows = result.iterator
+      if (rows.hasNext) Some(rows.next.get("cu", classOf[JavaCompilationUnitDescriptor])) else None
+    } finally result.close()
+  }
+
+  /** Return the type descriptor for the given import name, the compilation unit requires it once the batch is written. */
+  def resolveImport(fullQualifiedName: String, batch: DependencyBatch): TypeCache.CachedType[TypeDescriptor] = {
+    val cachedType = typeResolver.resolve(intern(fullQualifiedName), scannerContext)
+    batch.require(cachedType.getTypeDescriptor)
     cachedType
   }
 
-  /** Return the type descriptor for the given type name. */
-  def resolveType(fullQualifiedName: String, dependentType: TypeCache.CachedType[_ <: TypeDescriptor]):
-      TypeCache.CachedType[TypeDescriptor] = {
-    val cachedType = typeResolver.resolve(fullQualifiedName, scannerContext)
-    if (!dependentType.equals(cachedType) && dependentType.getDependency(fullQualifiedName) == null) {
+  /** Return the type descriptor for the given type name, the dependent type depends on it once the batch is written. */
+  def resolveType(fullQualifiedName: String, dependentType: TypeCache.CachedType[_ <: TypeDescriptor],
+                  batch: DependencyBatch): TypeCache.CachedType[TypeDescriptor] = {
+    val name = intern(fullQualifiedName)
+    val cachedType = typeResolver.resolve(name, scannerContext)
+    val newDependency = !dependentType.equals(cachedType) && dependentType.getDependency(name) == null
+    if (newDependency) {
       val dependency = cachedType.getTypeDescriptor()
-      dependentType.addDependency(fullQualifiedName, dependency)
-      dependentType.getTypeDescriptor.getDependencies.add(dependency)
+      dependentType.addDependency(name, dependency)
+      batch.dependOn(dependentType.getTypeDescriptor, dependency)
     }
+    if (statistics != null && statistics.isEnabled) statistics.referenced(newDependency)
     cachedType
   }
 
+  /** The statistics of the running scan, `null` outside of the java source scope. */
+  private lazy val statistics = scannerContext.peek(classOf[ScanStatistics])
+
 
   /** Return the type descriptor for the given type name. */
   def createType[T <: TypeDescriptor](fullQualifiedName: String, descriptorType: Class[T]): TypeCache.CachedType[T] = {
-    typeResolver.create(fullQualifiedName, descriptorType, scannerContext)
+    typeResolver.create(intern(fullQualifiedName), descriptorType, scannerContext)
   }
 
+  /** Weigh the given type again once members or dependencies have been added to it, see [[TypeCache.reweigh]]. */
+  def reweigh(cachedType: TypeCache.CachedType[_ <: TypeDescriptor]): Unit = typeResolver.getTypeCache.reweigh(cachedType)
+
+  /** Return the instance of the given name shared by the whole scan, see [[TypeCache.intern]]. */
+  def intern(name: String): String = typeResolver.getTypeCache.intern(name)
+
 
   /**
    * Return the type resolver.
@@ -0,0 +1,57 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.scanner
+
+import java.nio.ByteBuffer
+import java.nio.charset.{Charset, CodingErrorAction, StandardCharsets}
+
+import org.antlr.runtime.{ANTLRStringStream, CharStream}
+
+
+/**
+ * Decodes the content of a source file for the lexer.
+ *
+ * A byte order mark determines the charset of the source and is skipped. Sources without a byte order mark are
+ * decoded with the given charset. Malformed input is replaced, as done by a reader. The decoded characters are passed
+ * to the lexer without copying them again.
+ */
+object SourceDecoder {
+
+  private val Utf8Bom = Array(0xEF, 0xBB, 0xBF).map(_.toByte)
+
+  private val Utf16BeBom = Array(0xFE, 0xFF).map(_.toByte)
+
+  private val Utf16LeBom = Array(0xFF, 0xFE).map(_.toByte)
+
+  /**
+   * Decode the given source.
+   *
+   * @param source
+   *                  The content of the source file.
+   * @param charset
+   *                  The charset of sources without a byte order mark.
+   * @return The characters of the source.
+   */
+  def decode(source: Array[Byte], charset: Charset): CharStream = {
+    val (detected, offset) = detect(source).getOrElse((charset, 0))
+    val chars = detected.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE)
+      .decode(ByteBuffer.wrap(source, offset, source.length - offset))
+    if (chars.hasArray && chars.arrayOffset == 0 && chars.position == 0) {
+      new ANTLRStringStream(chars.array, chars.limit)
+    } else {
+      new ANTLRStringStream(chars.toString)
+    }
+  }
+
+  /** Return the charset given by the byte order mark of the source and the length of the mark, if any. */
+  private def detect(source: Array[Byte]): Option[(Charset, Int)] = {
+    if (startsWith(source, Utf8Bom)) Some((StandardCharsets.UTF_8, Utf8Bom.length))
+    else if (startsWith(source, Utf16BeBom)) Some((StandardCharsets.UTF_16BE, Utf16BeBom.length))
+    else if (startsWith(source, Utf16LeBom)) Some((StandardCharsets.UTF_16LE, Utf16LeBom.length))
+    else None
+  }
+
+  private def startsWith(source: Array[Byte], bom: Array[Byte]): Boolean = {
+    source.length >= bom.length && bom.indices.forall(i => source(i) == bom(i))
+  }
+}
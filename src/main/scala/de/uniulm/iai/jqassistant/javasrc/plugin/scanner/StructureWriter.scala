@@ -0,0 +1,246 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.scanner
+
+import com.buschmais.jqassistant.core.store.api.model.Descriptor
+import de.uniulm.iai.comma.measurement.ast.FanOutComplexityVisitor
+import de.uniulm.iai.comma.measurement.processor.MetricProfile
+import de.uniulm.iai.comma.model._
+import de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner.TypeCache
+import de.uniulm.iai.jqassistant.javasrc.plugin.model._
+import de.uniulm.iai.jqassistant.javasrc.plugin.model.measure._
+
+import scala.collection.mutable
+
+
+object StructureWriter {
+  def apply(helper: ScannerHelper, profile: MetricProfile) = new StructureWriter(helper, profile)
+}
+
+
+/**
+ * Writes the result of a source file analysis to the store.
+ *
+ * The declarations are written in the order they have been detected, so the resulting graph is the same
+ * no matter when or on which thread the analysis took place.
+ *
+ * Type names of fields and parameters are qualified by the single-type imports of the compilation unit before they
+ * are resolved. The fan-out of the types and functions counted by the metric profile is the number of distinct
+ * resolved types their fields and parameters use, including type arguments.
+ *
+ * @author Steffen Kram
+ */
+class StructureWriter(helper: ScannerHelper, profile: MetricProfile) {
+
+  /**
+   * Write all declarations and measures of the given structure.
+   *
+   * If the analysis failed, the declarations found up to the failure are written and the failure is rethrown
+   * afterwards. Measures are not written in this case. A degraded analysis is recorded at the compilation unit, its
+   * fan-out is not counted.
+   * Required types and dependencies are collected while the declarations are written and added at once afterwards,
+   * also if writing a declaration fails.
+   *
+   * @param structure
+   *                  The analysis result.
+   * @param compilationUnit
+   *                  The descriptor of the analyzed compilation unit.
+   * @return The compilation unit descriptor.
+   */
+  def write(structure: SourceStructure, compilationUnit: JavaCompilationUnitDescriptor): JavaCompilationUnitDescriptor = {
+    val declarations = structure.declarations
+    val descriptors = new Array[Descriptor](declarations.size)
+    val cachedTypes = new Array[TypeCache.CachedType[_ <: TypeDescriptor]](declarations.size)
+    val batch = new DependencyBatch
+    val imports = mutable.HashMap.empty[String, String]
+    // The fully qualified names of the types used by each declaration whose fan-out is counted
+    val usedTypes = new Array[mutable.HashSet[String]](declarations.size)
+    def countFanOut(i: Int, artifactType: ArtifactType): Unit = {
+      if (profile.counts(MetricProfile.FanOutCounts, artifactType)) usedTypes(i) = mutable.HashSet.empty
+    }
+    def use(i: Int, typeName: String, dependentType: TypeCache.CachedType[_ <: TypeDescriptor]): TypeDescriptor = {
+      val dependency = helper.resolveType(qualify(typeName, imports), dependentType, batch).getTypeDescriptor
+      if (usedTypes(i) != null) usedTypes(i) += dependency.getFullQualifiedName
+      dependency
+    }
+    if (structure.degradation.isDefined || compilationUnit.getDegradation != null) {
+      compilationUnit.setDegradation(structure.degradation.orNull)
+    }
+
+    try for (i <- declarations.indices) declarations(i) match {
+      case CompilationUnitDeclaration =>
+        descriptors(i) = compilationUnit
+
+      case ImportDeclaration(fullQualifiedName) =>
+        helper.resolveImport(fullQualifiedName, batch)
+        if (!fullQualifiedName.startsWith("static.") && !fullQualifiedName.endsWith(".*")) {
+          imports(fullQualifiedName.substring(fullQualifiedName.lastIndexOf('.') + 1)) = fullQualifiedName
+        }
+
+      case d: TypeDeclaration =>
+        val cachedType = helper.createType(d.fullQualifiedName, typeDescriptorClass(d.artifactType))
+        val descr = cachedType.getTypeDescriptor
+        if (!isInnerType(d.artifactType)) descr.setDeclarationUnit(compilationUnit)
+        descr.setName(helper.intern(d.name))
+        descr.setStartLineNumber(d.startLine)
+        descr.setEndLineNumber(d.endLine)
+        descr.setVisibility(d.visibility.name)
+        descr.setFinal(d.isFinal)
+        descr.setStatic(d.isStatic)
+        descr.setAbstract(d.isAbstract)
+
+        if (d.isMainType) {
+          compilationUnit.setMainType(descr)
+        }
+        if (isInnerType(d.artifactType)) {
+          cachedTypes(d.parent.get).getTypeDescriptor.getDeclaredInnerTypes.add(descr)
+        }
+        descriptors(i) = descr
+        cachedTypes(i) = cachedType
+        countFanOut(i, d.artifactType)
+
+      case d: AnonymousClassDeclaration =>
+        val parent = cachedTypes(d.parent)
+        val cachedType = helper.createType(d.fullQualifiedName, classOf[AnonymousClassDescriptor])
+        val descr = cachedType.getTypeDescriptor
+        descr.setIndex(d.index)
+        descr.setName(s"${parent.getTypeDescriptor.getName}.ANON[${descr.getIndex}]")
+        descr.setStartLineNumber(d.startLine)
+        descr.setEndLineNumber(d.endLine)
+        parent.getTypeDescriptor.getDeclaredInnerTypes.add(descr)
+        descriptors(i) = descr
+        cachedTypes(i) = cachedType
+        countFanOut(i, ArtifactType.ANON_INNER_CLASS)
+
+      case d: EnumConstantDeclaration =>
+        val cachedType = helper.createType(d.fullQualifiedName, classOf[EnumConstantDescriptor])
+        val descr = cachedType.getTypeDescriptor
+        descr.setName(helper.intern(d.fullQualifiedName))
+        descr.setStartLineNumber(d.startLine)
+        descr.setEndLineNumber(d.endLine)
+        cachedTypes(d.parent).getTypeDescriptor.getDeclaredInnerTypes.add(descr)
+        descriptors(i) = descr
+
+      case d: FunctionDeclaration =>
+        val parent = cachedTypes(d.parent)
+        val signature = helper.intern(d.signature)
+        val descr = d.artifactType match {
+          case ArtifactType.CONSTRUCTOR =>
+            helper.constructorDescriptor(parent, signature)
+          case _ =>
+            val method = helper.methodDescriptor(parent, signature)
+            method.setStatic(d.isStatic)
+            method
+        }
+        descr.setName(helper.intern(d.name))
+        descr.setAbstract(d.isAbstract)
+        descr.setFinal(d.isFinal)
+        descr.setVisibility(d.visibility.name)
+        descr.setStartLineNumber(d.startLine)
+        descr.setEndLineNumber(d.endLine)
+        descriptors(i) = descr
+        countFanOut(i, d.artifactType)
+        d.parameterTypes.foreach(use(i, _, parent))
+
+      case d: FieldDeclaration =>
+        val parent = cachedTypes(d.parent)
+        val signature = helper.intern(d.signature)
+        val descr = helper.fieldDescriptor(parent, signature)
+        descr.setName(signature)
+        descr.setVisibility(d.visibility.name)
+        descr.setFinal(d.isFinal)
+        descr.setStatic(d.isStatic)
+        descr.setTransient(d.isTransient)
+        descr.setVolatile(d.isVolatile)
+        descr.setStartLineNumber(d.startLine)
+        descr.setType(use(d.parent, d.typeName, parent))
+        d.typeArguments.foreach(use(d.parent, _, parent))
+        descriptors(i) = descr
+    } finally {
+      batch.write(compilationUnit)
+      // The written types have gained their members and dependencies
+      cachedTypes.foreach(cachedType => if (cachedType != null) helper.reweigh(cachedType))
+    }
+
+    structure.failure.foreach(throw _)
+
+    for ((i, values) <- structure.measures; value <- values) {
+      writeMeasure(descriptors(i), value)
+    }
+    if (structure.degradation.isEmpty) {
+      for (i <- usedTypes.indices if usedTypes(i) != null) {
+        val fanOut = usedTypes(i).count(FanOutComplexityVisitor.isSignificant)
+        descriptors(i).asInstanceOf[FanOutDescriptor].setFanOut(fanOut.toLong)
+      }
+    }
+    compilationUnit
+  }
+
+
+  /**
+   * Qualify a type name by the single-type imports, e.g. `List` or `Map.Entry` become `java.util.List` or
+   * `java.util.Map.Entry` if `java.util.List` or `java.util.Map` are imported. Other names are kept as they are.
+   */
+  private def qualify(typeName: String, imports: collection.Map[String, String]): String = {
+    val end = typeName.indexOf('.')
+    val simpleName = if (end < 0) typeName else typeName.substring(0, end)
+    imports.get(simpleName) match {
+      case Some(fullQualifiedName) => fullQualifiedName + typeName.substring(simpleName.length)
+      case None => typeName
+    }
+  }
+
+
+  /** Set the property matching the measure of the given value, measures without a property are skipped. */
+  private def writeMeasure(descriptor: Descriptor, value: Value): Unit = value.measure match {
+    case Measure.LOC =>
+      descriptor.asInstanceOf[LocDescriptor].setLinesOfCode(value.value.toLong)
+    case Measure.LINES =>
+      descriptor.asInstanceOf[LinesDescriptor].setLines(value.value.toLong)
+    case Measure.LINE_COMMENT_COUNT =>
+      descriptor.asInstanceOf[CommentDescriptor].setLineCommentCount(value.value.toLong)
+    case Measure.LINE_COMMENT_LENGTH =>
+      descriptor.asInstanceOf[CommentDescriptor].setLineCommentLength(value.value.toLong)
+    case Measure.BLOCK_COMMENT_COUNT =>
+      descriptor.asInstanceOf[CommentDescriptor].setBlockCommentCount(value.value.toLong)
+    case Measure.BLOCK_COMMENT_LINES =>
+      descriptor.asInstanceOf[CommentDescriptor].setBlockCommentLines(value.value.toLong)
+    case Measure.BLOCK_COMMENT_LENGTH =>
+      descriptor.asInstanceOf[CommentDescriptor].setBlockCommentLength(value.value.toLong)
+    case Measure.JAVADOC_COUNT =>
+      descriptor.asInstanceOf[CommentDescriptor].setJavadocCount(value.value.toLong)
+    case Measure.JAVADOC_LINES =>
+      descriptor.asInstanceOf[CommentDescriptor].setJavadocLines(value.value.toLong)
+    case Measure.JAVADOC_LENGTH =>
+      descriptor.asInstanceOf[CommentDescriptor].setJavadocLength(value.value.toLong)
+    case Measure.DOC_LINES =>
+      descriptor.asInstanceOf[CommentDescriptor].setDocLines(value.value.toLong)
+    case Measure.DOC_LENGTH =>
+      descriptor.asInstanceOf[CommentDescriptor].setDocLength(value.value.toLong)
+    case Measure.NCSCSS =>
+      descriptor.asInstanceOf[NcscssDescriptor].setNcscss(value.value.toLong)
+    case Measure.CCN =>
+      descriptor.asInstanceOf[CyclomaticComplexityDescriptor].setCyclomaticComplexityNumber(value.value.toLong)
+    case Measure.NPATH =>
+      descriptor.asInstanceOf[NPathComplexityDescriptor].setNPathComplexity(value.value.toLong)
+    case Measure.NPATH_MAX_EXCEEDED =>
+      descriptor.asInstanceOf[NPathComplexityDescriptor].setNPathComplexity(-1l)
+    case _ => // no property available
+  }
+
+
+  private def typeDescriptorClass(artifactType: ArtifactType): Class[_ <: TypeDescriptor] = artifactType match {
+    case ArtifactType.CLASS | ArtifactType.INNER_CLASS => classOf[ClassDescriptor]
+    case ArtifactType.INTERFACE | ArtifactType.INNER_INTERFACE => classOf[InterfaceDescriptor]
+    case ArtifactType.ENUM | ArtifactType.INNER_ENUM => classOf[EnumDescriptor]
+    case ArtifactType.ANNOTATION | ArtifactType.INNER_ANNOTATION => classOf[AnnotationDescriptor]
+    case _ => throw new IllegalStateException("Unexpected class type: " + artifactType.name)
+  }
+
+
+  private def isInnerType(artifactType: ArtifactType): Boolean = artifactType match {
+    case ArtifactType.INNER_CLASS
+         | ArtifactType.INNER_INTERFACE
+         | ArtifactType.INNER_ENUM
+         | ArtifactType.INNER_ANNOTATION => true
+    case _ => false
+  }
+}
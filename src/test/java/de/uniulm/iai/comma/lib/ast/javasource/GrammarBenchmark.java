@@ -0,0 +1,86 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.lib.ast.javasource;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.antlr.runtime.RecognitionException;
+
+/**
+ * Compares the parse throughput of the java grammar with the former grammar
+ * which used global backtracking. Both parse the corpus of the
+ * {@link GrammarEquivalenceTest}, another directory may be given by the system
+ * property <code>grammar.corpus</code>.
+ * <p>
+ * Run the main method from the IDE or with
+ * <code>mvn test-compile exec:java -Dexec.mainClass=de.uniulm.iai.comma.lib.ast.javasource.GrammarBenchmark -Dexec.classpathScope=test</code>.
+ * </p>
+ */
+public class GrammarBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final int MEASURED_ROUNDS = 9;
+
+    public static void main(String[] args) throws Exception {
+        List<String> sources = new ArrayList<>();
+        long bytes = 0;
+        for (File file : GrammarEquivalenceTest.corpus()) {
+            byte[] content = Files.readAllBytes(file.toPath());
+            sources.add(new String(content, StandardCharsets.UTF_8));
+            bytes += content.length;
+        }
+        long backtracking = measure(sources, true);
+        long predicates = measure(sources, false);
+        System.out.println(String.format("%d files, %d kB", sources.size(), bytes / 1024));
+        System.out.println(String.format("backtracking grammar: %8.2f ms, %6.2f MB/s", backtracking / 1e6, bytes * 1e3 / backtracking));
+        System.out.println(String.format("current grammar:      %8.2f ms, %6.2f MB/s", predicates / 1e6, bytes * 1e3 / predicates));
+    }
+
+    /**
+     * Return the median time in nanoseconds to parse all sources.
+     */
+    private static long measure(List<String> sources, boolean backtracking) throws RecognitionException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            parseAll(sources, backtracking);
+        }
+        long[] times = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            parseAll(sources, backtracking);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[MEASURED_ROUNDS / 2];
+    }
+
+    private static void parseAll(List<String> sources, boolean backtracking) throws RecognitionException {
+        for (String source : sources) {
+            if (backtracking) {
+                GrammarEquivalenceTest.parseBacktracking(source);
+            } else {
+                GrammarEquivalenceTest.parse(source);
+            }
+        }
+    }
+}
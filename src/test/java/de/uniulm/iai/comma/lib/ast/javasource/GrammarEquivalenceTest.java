@@ -0,0 +1,151 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.lib.ast.javasource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.antlr.runtime.tree.Tree;
+import org.junit.Test;
+
+/**
+ * Compares the trees of the java grammar with the trees of the former grammar
+ * which used global backtracking, see
+ * <code>src/test/antlr3/.../backtracking/Java.g</code>.
+ * <p>
+ * Each source file accepted by the former grammar must result in the same
+ * tree, including token positions. The corpus defaults to the sources in the
+ * test resources, another directory may be given by the system property
+ * <code>grammar.corpus</code>.
+ * </p>
+ */
+public class GrammarEquivalenceTest {
+
+    static final String CORPUS_PROPERTY = "grammar.corpus";
+
+    @Test
+    public void sameTreesAsBacktrackingGrammar() throws Exception {
+        List<File> sources = corpus();
+        assertFalse("No sources found", sources.isEmpty());
+        int compared = 0;
+        for (File source : sources) {
+            String content = new String(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8);
+            ParseResult expected = parseBacktracking(content);
+            if (expected.hasErrors) {
+                continue;
+            }
+            ParseResult actual = parse(content);
+            assertFalse("Cannot parse " + source, actual.hasErrors);
+            assertEquals("Different tree for " + source, dump(expected.tree), dump(actual.tree));
+            compared++;
+        }
+        assertFalse("No source accepted by the backtracking grammar", compared == 0);
+    }
+
+    /**
+     * Return all java sources of the corpus in a stable order.
+     */
+    static List<File> corpus() throws URISyntaxException {
+        String directory = System.getProperty(CORPUS_PROPERTY);
+        File root = directory != null ? new File(directory) : new File(GrammarEquivalenceTest.class.getResource("corpus").toURI());
+        List<File> sources = new ArrayList<>();
+        collect(root, sources);
+        Collections.sort(sources);
+        return sources;
+    }
+
+    private static void collect(File file, List<File> sources) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                collect(child, sources);
+            }
+        } else if (file.getName().endsWith(".java")) {
+            sources.add(file);
+        }
+    }
+
+    static ParseResult parse(String content) throws RecognitionException {
+        JavaLexer lexer = new JavaLexer(new ANTLRStringStream(content));
+        lexer.mPreserveBlockComments = true;
+        lexer.mPreserveJavaDocComments = true;
+        lexer.mPreserveLineComments = true;
+        JavaParser parser = new JavaParser(new CommonTokenStream(lexer));
+        parser.enableErrorMessageCollection(true);
+        parser.setTreeAdaptor(new EnhancedCommonTreeAdapter());
+        Tree tree = (Tree) parser.javaSource().getTree();
+        return new ParseResult(tree, parser.hasErrors());
+    }
+
+    static ParseResult parseBacktracking(String content) throws RecognitionException {
+        de.uniulm.iai.comma.lib.ast.javasource.backtracking.JavaLexer lexer =
+                new de.uniulm.iai.comma.lib.ast.javasource.backtracking.JavaLexer(new ANTLRStringStream(content));
+        lexer.mPreserveBlockComments = true;
+        lexer.mPreserveJavaDocComments = true;
+        lexer.mPreserveLineComments = true;
+        de.uniulm.iai.comma.lib.ast.javasource.backtracking.JavaParser parser =
+                new de.uniulm.iai.comma.lib.ast.javasource.backtracking.JavaParser(new CommonTokenStream(lexer));
+        parser.enableErrorMessageCollection(true);
+        parser.setTreeAdaptor(new EnhancedCommonTreeAdapter());
+        Tree tree = (Tree) parser.javaSource().getTree();
+        return new ParseResult(tree, parser.hasErrors());
+    }
+
+    /**
+     * Write type, text, position and token range of each node in pre-order.
+     */
+    static String dump(Tree root) {
+        StringBuilder dump = new StringBuilder();
+        Deque<Tree> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Tree node = pending.pop();
+            dump.append(node.getType()).append(' ').append(node.getText()).append(' ')
+                    .append(node.getLine()).append(':').append(node.getCharPositionInLine()).append(' ')
+                    .append(node.getTokenStartIndex()).append('-').append(node.getTokenStopIndex()).append(' ')
+                    .append(node.getChildCount()).append('\n');
+            for (int i = node.getChildCount() - 1; i >= 0; i--) {
+                pending.push(node.getChild(i));
+            }
+        }
+        return dump.toString();
+    }
+
+    static class ParseResult {
+        final Tree tree;
+        final boolean hasErrors;
+
+        ParseResult(Tree tree, boolean hasErrors) {
+            this.tree = tree;
+            this.hasErrors = hasErrors;
+        }
+    }
+}
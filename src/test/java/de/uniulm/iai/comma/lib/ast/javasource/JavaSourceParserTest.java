@@ -0,0 +1,122 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.lib.ast.javasource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.junit.Test;
+
+/**
+ * Parses the sources of the grammar corpus by a single {@link JavaSourceParser}
+ * and compares the results with those of a lexer and parser created for each
+ * source. Each source is preceded by an invalid one, so errors must not leak
+ * into the next source. The skeletons of the sources must keep all
+ * declarations outside of blocks.
+ */
+public class JavaSourceParserTest {
+
+    private static final String INVALID_SOURCE = "/* comment */ class Invalid { void m( }";
+
+    @Test
+    public void sameResultsAsCreatedParser() throws Exception {
+        JavaSourceParser reused = new JavaSourceParser();
+        for (File source : GrammarEquivalenceTest.corpus()) {
+            String content = new String(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8);
+
+            reused.parse(new ANTLRStringStream(INVALID_SOURCE));
+            assertTrue("Invalid source accepted", reused.hasErrors());
+            reused.release();
+
+            JavaLexer lexer = new JavaLexer(new ANTLRStringStream(content));
+            lexer.mPreserveBlockComments = true;
+            lexer.mPreserveJavaDocComments = true;
+            lexer.mPreserveLineComments = true;
+            CollectorTokenSource tokenSource = new CollectorTokenSource(lexer, Arrays.asList(JavaLexer.BLOCK_COMMENT,
+                    JavaLexer.LINE_COMMENT, JavaLexer.JAVADOC_COMMENT));
+            CommonTokenStream tokens = new CommonTokenStream(tokenSource);
+            JavaParser created = new JavaParser(tokens);
+            created.enableErrorMessageCollection(true);
+            created.setTreeAdaptor(new EnhancedCommonTreeAdapter());
+            String expected = GrammarEquivalenceTest.dump((EnhancedCommonTree) created.javaSource().getTree());
+
+            String actual = GrammarEquivalenceTest.dump(reused.parse(new ANTLRStringStream(content)));
+            assertEquals("Different errors for " + source, created.hasErrors(), reused.hasErrors());
+            assertEquals("Different tree for " + source, expected, actual);
+            assertEquals("Different token count for " + source, tokens.size(), reused.getTokenCount());
+            assertEquals("Different comments for " + source, tokenSource.getCollectedTokens().toString(),
+                    reused.getCollectedTokens().toString());
+            reused.release();
+            assertTrue("Comments kept after release", reused.getCollectedTokens().isEmpty());
+        }
+    }
+
+    @Test
+    public void skeletonKeepsDeclarations() throws Exception {
+        JavaSourceParser parser = new JavaSourceParser();
+        for (File source : GrammarEquivalenceTest.corpus()) {
+            String content = new String(Files.readAllBytes(source.toPath()), StandardCharsets.UTF_8);
+            EnhancedCommonTree tree = parser.parse(new ANTLRStringStream(content));
+            if (parser.hasErrors()) {
+                continue;
+            }
+            List<String> expected = declarations(tree, new ArrayList<String>());
+            parser.release();
+
+            parser.tokenize(new ANTLRStringStream(content), false);
+            EnhancedCommonTree skeleton = parser.parseSkeleton();
+            assertTrue("Cannot parse skeleton of " + source, !parser.hasErrors());
+            assertEquals("Different declarations for " + source, expected,
+                    declarations(skeleton, new ArrayList<String>()));
+            parser.release();
+        }
+    }
+
+    /** Collect the types and members not declared within a block, with their lines. */
+    private static List<String> declarations(EnhancedCommonTree node, List<String> declarations) {
+        switch (node.getType()) {
+        case JavaParser.BLOCK_SCOPE:
+            return declarations;
+        case JavaParser.CLASS_DECLARATION:
+        case JavaParser.INTERFACE:
+        case JavaParser.ENUM:
+        case JavaParser.ANNOTATION_DECL:
+        case JavaParser.CONSTRUCTOR_DECL:
+        case JavaParser.FUNCTION_METHOD_DECL:
+        case JavaParser.VOID_METHOD_DECL:
+        case JavaParser.VAR_DECLARATION:
+            declarations.add(JavaParser.tokenNames[node.getType()] + " " + node.getLine() + "-"
+                    + node.getLastLine());
+            break;
+        default:
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            declarations((EnhancedCommonTree) node.getChild(i), declarations);
+        }
+        return declarations;
+    }
+}
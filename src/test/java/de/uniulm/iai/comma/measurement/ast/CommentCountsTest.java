@@ -0,0 +1,95 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.uniulm.iai.comma.measurement.ast;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+import de.uniulm.iai.comma.measurement.processor.JavaMeasurement;
+import de.uniulm.iai.comma.measurement.processor.MetricProfile;
+import de.uniulm.iai.comma.model.SourceStructure;
+import de.uniulm.iai.comma.model.Value;
+import org.junit.Test;
+import scala.collection.Iterable;
+import scala.collection.JavaConversions;
+
+/**
+ * Checks the declarations the comments of a source are attributed to, see
+ * {@link CommentSet}. Each comment belongs to its innermost declaration, a
+ * trailing comment to the declaration of its line and any other comment to the
+ * declaration of the following code.
+ */
+public class CommentCountsTest {
+
+    @Test
+    public void attribution() throws Exception {
+        Map<String, String> expected = new TreeMap<>();
+        // License header, the comments of the package and the import
+        expected.put("Comments.java", "LINE_COMMENT_COUNT=3, LINE_COMMENT_LENGTH=79, BLOCK_COMMENT_COUNT=2, "
+                + "BLOCK_COMMENT_LINES=5, BLOCK_COMMENT_LENGTH=63, DOC_LINES=8, DOC_LENGTH=142");
+        // Javadoc of the type and the field, trailing and inner comments, comments behind the type
+        expected.put("p.Comments", "LINE_COMMENT_COUNT=4, LINE_COMMENT_LENGTH=91, BLOCK_COMMENT_COUNT=3, "
+                + "BLOCK_COMMENT_LINES=3, BLOCK_COMMENT_LENGTH=61, JAVADOC_COUNT=2, JAVADOC_LINES=4, "
+                + "JAVADOC_LENGTH=60, DOC_LINES=7, DOC_LENGTH=152");
+        expected.put("p.Comments.m(int x)", "LINE_COMMENT_COUNT=3, LINE_COMMENT_LENGTH=57, BLOCK_COMMENT_COUNT=2, "
+                + "BLOCK_COMMENT_LINES=2, BLOCK_COMMENT_LENGTH=43, JAVADOC_COUNT=1, JAVADOC_LINES=5, "
+                + "JAVADOC_LENGTH=75, DOC_LINES=5, DOC_LENGTH=100");
+        expected.put("p.Comments.Nested", "LINE_COMMENT_COUNT=1, LINE_COMMENT_LENGTH=19, JAVADOC_COUNT=1, "
+                + "JAVADOC_LINES=1, JAVADOC_LENGTH=34, DOC_LINES=1, DOC_LENGTH=19");
+        assertEquals(expected, comments("Comments.java"));
+    }
+
+    /** Comments behind the last code belong to the declaration of that code, not to the compilation unit. */
+    @Test
+    public void endOfFile() throws Exception {
+        Map<String, String> expected = new TreeMap<>();
+        expected.put("p.End", "LINE_COMMENT_COUNT=1, LINE_COMMENT_LENGTH=18, BLOCK_COMMENT_COUNT=1, "
+                + "BLOCK_COMMENT_LINES=1, BLOCK_COMMENT_LENGTH=22, DOC_LINES=2, DOC_LENGTH=40");
+        assertEquals(expected, comments("End.java"));
+    }
+
+    /**
+     * Return the comment counts greater than zero of each declaration, by the
+     * name of the declaration.
+     */
+    private static Map<String, String> comments(String resource) throws Exception {
+        SourceStructure structure;
+        try (Reader source = new InputStreamReader(CommentCountsTest.class.getResourceAsStream(resource),
+                StandardCharsets.UTF_8)) {
+            structure = JavaMeasurement.apply(resource, MetricProfile.Full()).run(source);
+        }
+        Map<String, String> comments = new TreeMap<>();
+        for (Iterable<Value> values : JavaConversions.asJavaIterable(structure.measures().values())) {
+            for (Value value : JavaConversions.asJavaIterable(values)) {
+                String measure = value.measure().toString();
+                if ((measure.contains("COMMENT") || measure.contains("DOC")) && value.value() > 0) {
+                    String artifact = value.artifact().isDefined() ? value.artifact().get() : resource;
+                    String counts = comments.containsKey(artifact) ? comments.get(artifact) + ", " : "";
+                    comments.put(artifact, counts + measure + "=" + (long) value.value());
+                }
+            }
+        }
+        return comments;
+    }
+}
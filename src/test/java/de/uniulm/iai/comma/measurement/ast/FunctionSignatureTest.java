@@ -0,0 +1,82 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.uniulm.iai.comma.measurement.ast;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.uniulm.iai.comma.measurement.processor.JavaMeasurement;
+import de.uniulm.iai.comma.measurement.processor.MetricProfile;
+import de.uniulm.iai.comma.model.Declaration;
+import de.uniulm.iai.comma.model.FunctionDeclaration;
+import de.uniulm.iai.comma.model.SourceStructure;
+import org.junit.Test;
+import scala.collection.JavaConversions;
+
+/**
+ * Checks the signatures of constructors and methods, see
+ * {@link VisitorHelper#functionSignature}.
+ * <p>
+ * The store identifies members by their signatures, so the signatures must
+ * stay as they have always been built, including the additional space before
+ * a vararg parameter following another one, a dropped name of a parameter
+ * with brackets after its name and the closing brackets of nested type
+ * arguments.
+ * </p>
+ */
+public class FunctionSignatureTest {
+
+    @Test
+    public void signatures() throws Exception {
+        assertEquals(Arrays.asList(
+                "p.Signatures(String... names)",
+                "p.Signatures(int a,  String... names)",
+                "p.Signatures.plain()",
+                "p.Signatures.arrays(int[] a, String[][] b, finallong[])",
+                "p.Signatures.generics(List<String> l, Map<String, List<Integer>>>> m, List<? extends Number> n, "
+                        + "Class<? super T> c)",
+                "p.Signatures.qualified(java.util.List<java.io.File> l, java.util.Map.Entry<String, Object> e)",
+                "p.Signatures.typed(E e,  E... more)",
+                "p.Signatures.varargs(final java.lang.Object... objects)",
+                "p.Signatures.genericVarargs(List<String>... lists)",
+                "p.Signatures.arrayVarargs(int a,  int[]... arrays)",
+                "p.Signatures.mapVarargs(Map<String, Integer>... maps)",
+                "p.Signatures.Annotation.value()"), signatures("Signatures.java"));
+    }
+
+    private static List<String> signatures(String resource) throws Exception {
+        SourceStructure structure;
+        try (Reader source = new InputStreamReader(FunctionSignatureTest.class.getResourceAsStream(resource),
+                StandardCharsets.UTF_8)) {
+            structure = JavaMeasurement.apply(resource, MetricProfile.StructureOnly()).run(source);
+        }
+        List<String> signatures = new ArrayList<>();
+        for (Declaration declaration : JavaConversions.seqAsJavaList(structure.declarations())) {
+            if (declaration instanceof FunctionDeclaration) {
+                signatures.add(((FunctionDeclaration) declaration).signature());
+            }
+        }
+        return signatures;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.uniulm.iai.comma.measurement.ast;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+
+import de.uniulm.iai.comma.lib.ast.javasource.EnhancedCommonTree;
+import de.uniulm.iai.comma.lib.ast.javasource.JavaParser;
+import de.uniulm.iai.comma.lib.ast.javasource.JavaSourceParser;
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.Token;
+import org.junit.Test;
+import scala.collection.JavaConversions;
+
+/**
+ * Checks the comments attached to the nodes of a source, see
+ * {@link AstAnalyzer$#attachHiddenTokens}.
+ * <p>
+ * The expected comments are those attached by the former recursive
+ * implementation. Nodes without comments are left out, so every other node
+ * must have neither preceding nor following comments.
+ * </p>
+ */
+public class HiddenTokensTest {
+
+    @Test
+    public void comments() throws Exception {
+        String content;
+        try (InputStream source = HiddenTokensTest.class.getResourceAsStream("Comments.java");
+                Scanner scanner = new Scanner(source, "UTF-8")) {
+            content = scanner.useDelimiter("\\A").next();
+        }
+        JavaSourceParser parser = new JavaSourceParser();
+        EnhancedCommonTree tree = parser.parse(new ANTLRStringStream(content));
+        List<Token> left = JavaConversions.seqAsJavaList(AstAnalyzer$.MODULE$.attachHiddenTokens(
+                JavaConversions.asScalaBuffer(Collections.singletonList(tree)).toIndexedSeq(),
+                parser.getTokenCount(), parser.getCollectedTokens()));
+        parser.release();
+
+        assertEquals(new ArrayList<Token>(), left);
+        assertEquals(Arrays.asList(
+                "PACKAGE 'package' 6 preceded by /*\\n * License header\\n * of two lines\\n */",
+                "PACKAGE 'package' 6 preceded by // A line comment after the header",
+                "SEMI ';' 6 followed by // trailing the package",
+                "IMPORT 'import' 9 preceded by /* before the import */",
+                "SEMI ';' 9 followed by // trailing the import",
+                "AT '@' 14 preceded by /**\\n * Javadoc of the class.\\n */",
+                "LCURLY '{' 15 followed by // trailing the class",
+                "PRIVATE 'private' 18 preceded by /** Javadoc of the field. */",
+                "SEMI ';' 18 followed by // trailing the field",
+                "SEMI ';' 20 preceded by /* within */",
+                "PUBLIC 'public' 27 preceded by /**\\n     * Javadoc of the method.\\n     *\\n"
+                        + "     * @param x The value.\\n     */",
+                "INT 'int' 29 preceded by // leading the statement",
+                "SEMI ';' 29 followed by /* trailing block */",
+                "SEMI ';' 29 followed by // and line",
+                "RETURN 'return' 30 preceded by /* before the return */",
+                "PLUS '+' 31 preceded by // before the operator",
+                "STATIC 'static' 35 preceded by /** Javadoc of the nested type. */",
+                "RCURLY '}' 37 preceded by // the only content",
+                "RCURLY '}' 38 followed by // trailing the type",
+                "RCURLY '}' 38 followed by // before the end of the file",
+                "RCURLY '}' 38 followed by /* the last comment */",
+                "RCURLY '}' 38 followed by /* no newline at the end */"), comments(tree, new ArrayList<String>()));
+    }
+
+    /** Collect the comments of the nodes in depth-first order, each with its node and line. */
+    private static List<String> comments(EnhancedCommonTree node, List<String> comments) {
+        String name = JavaParser.tokenNames[node.getType()] + " '" + node.getText() + "' " + node.getLine();
+        for (Token token : node.getPrecedingComments()) {
+            comments.add(name + " preceded by " + token.getText().replace("\n", "\\n"));
+        }
+        for (Token token : node.getFollowingComments()) {
+            comments.add(name + " followed by " + token.getText().replace("\n", "\\n"));
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            comments((EnhancedCommonTree) node.getChild(i), comments);
+        }
+        return comments;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.uniulm.iai.comma.measurement.ast;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+import de.uniulm.iai.comma.measurement.processor.JavaMeasurement;
+import de.uniulm.iai.comma.measurement.processor.MetricProfile;
+import de.uniulm.iai.comma.model.SourceStructure;
+import de.uniulm.iai.comma.model.Value;
+import org.junit.Test;
+import scala.collection.Iterable;
+import scala.collection.JavaConversions;
+
+/**
+ * Checks the lines and lines of code of a source and its declarations, see
+ * {@link LineSet}. Blank lines and lines of comments only are no lines of
+ * code, a statement spanning several lines counts each of them. The source
+ * has more than 64 lines and no line break at its end.
+ */
+public class LineCountsTest {
+
+    @Test
+    public void lineCounts() throws Exception {
+        Map<String, String> expected = new TreeMap<>();
+        expected.put("Lines.java", "LOC=35, LINES=73");
+        expected.put("p.Lines", "LOC=33, LINES=63");
+        expected.put("p.Lines.first()", "LOC=4, LINES=8");
+        expected.put("p.Lines.second(List<String> list)", "LOC=23, LINES=43");
+        assertEquals(expected, lineCounts("Lines.java"));
+    }
+
+    @Test
+    public void wordBoundaries() {
+        LineSet lines = new LineSet();
+        for (int line : new int[] { 1, 63, 64, 65, 127, 128, 200 }) {
+            lines.mark(line);
+        }
+        assertEquals(200, lines.lines());
+        assertEquals(2, lines.count(63, 64));
+        assertEquals(1, lines.count(64, 64));
+        assertEquals(3, lines.count(64, 127));
+        assertEquals(6, lines.count(1, 199));
+        assertEquals(7, lines.count(0, 1000));
+        assertEquals(0, lines.count(129, 199));
+        assertEquals(0, lines.count(65, 64));
+    }
+
+    /** Return the line counts of each declaration, by the name of the declaration. */
+    private static Map<String, String> lineCounts(String resource) throws Exception {
+        SourceStructure structure;
+        try (Reader source = new InputStreamReader(LineCountsTest.class.getResourceAsStream(resource),
+                StandardCharsets.UTF_8)) {
+            structure = JavaMeasurement.apply(resource, MetricProfile.Default()).run(source);
+        }
+        Map<String, String> lineCounts = new TreeMap<>();
+        for (Iterable<Value> values : JavaConversions.asJavaIterable(structure.measures().values())) {
+            for (Value value : JavaConversions.asJavaIterable(values)) {
+                String measure = value.measure().toString();
+                if (measure.equals("LOC") || measure.equals("LINES")) {
+                    String artifact = value.artifact().isDefined() ? value.artifact().get() : resource;
+                    String counts = lineCounts.containsKey(artifact) ? lineCounts.get(artifact) + ", " : "";
+                    lineCounts.put(artifact, counts + measure + "=" + (long) value.value());
+                }
+            }
+        }
+        return lineCounts;
+    }
+}
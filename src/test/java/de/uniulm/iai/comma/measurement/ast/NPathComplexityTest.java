@@ -0,0 +1,82 @@
+/*
+ * comma, A Code Measurement and Analysis Tool
+ * Copyright (C) 2010-2015 Steffen Kram
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.uniulm.iai.comma.measurement.ast;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+import de.uniulm.iai.comma.measurement.processor.JavaMeasurement;
+import de.uniulm.iai.comma.measurement.processor.MetricProfile;
+import de.uniulm.iai.comma.model.SourceStructure;
+import de.uniulm.iai.comma.model.Value;
+import org.junit.Test;
+import scala.collection.Iterable;
+import scala.collection.JavaConversions;
+
+/**
+ * Checks the NPath complexity of constructors and methods, see
+ * {@link NPathComplexityVisitor}.
+ * <p>
+ * The expected values are those of the former recursive implementation,
+ * including the try-range counted once more for each catch clause and the
+ * complexity exceeding the threshold once the method block alone does.
+ * </p>
+ */
+public class NPathComplexityTest {
+
+    @Test
+    public void npath() throws Exception {
+        Map<String, String> expected = new TreeMap<>();
+        expected.put("p.NPath(int state)", "NPATH=2");
+        expected.put("p.NPath.none()", "NPATH=1");
+        expected.put("p.NPath.empty()", "NPATH=1");
+        expected.put("p.NPath.ifElseChain(int a, int b)", "NPATH=8");
+        expected.put("p.NPath.loops(List<String> items, int n)", "NPATH=192");
+        expected.put("p.NPath.tryCatchFinally(String value)", "NPATH=44");
+        expected.put("p.NPath.switchFallThrough(int a)", "NPATH=28");
+        expected.put("p.NPath.ternaryAndLogical(int a, int b, boolean c)", "NPATH=96");
+        expected.put("p.NPath.saturated(int a)", "NPATH_MAX_EXCEEDED=1");
+        expected.put("p.NPath.belowThreshold(int a)", "NPATH=8192");
+        assertEquals(expected, npaths("NPath.java"));
+    }
+
+    /** Return the NPath measure of each function, by the signature of the function. */
+    private static Map<String, String> npaths(String resource) throws Exception {
+        SourceStructure structure;
+        try (Reader source = new InputStreamReader(NPathComplexityTest.class.getResourceAsStream(resource),
+                StandardCharsets.UTF_8)) {
+            structure = JavaMeasurement.apply(resource, MetricProfile.Default()).run(source);
+        }
+        Map<String, String> npaths = new TreeMap<>();
+        for (Iterable<Value> values : JavaConversions.asJavaIterable(structure.measures().values())) {
+            for (Value value : JavaConversions.asJavaIterable(values)) {
+                String measure = value.measure().toString();
+                if (measure.equals("NPATH") || measure.equals("NPATH_MAX_EXCEEDED")) {
+                    npaths.put(value.artifact().get(), measure + "=" + (long) value.value());
+                }
+            }
+        }
+        return npaths;
+    }
+}
@@ -0,0 +1,117 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.scanner;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import com.buschmais.jqassistant.core.plugin.api.ModelPluginRepository;
+import com.buschmais.jqassistant.core.plugin.api.PluginConfigurationReader;
+import com.buschmais.jqassistant.core.plugin.api.PluginRepositoryException;
+import com.buschmais.jqassistant.core.plugin.api.ScannerPluginRepository;
+import com.buschmais.jqassistant.core.plugin.api.ScopePluginRepository;
+import com.buschmais.jqassistant.core.plugin.impl.ModelPluginRepositoryImpl;
+import com.buschmais.jqassistant.core.plugin.impl.PluginConfigurationReaderImpl;
+import com.buschmais.jqassistant.core.plugin.impl.ScannerPluginRepositoryImpl;
+import com.buschmais.jqassistant.core.plugin.impl.ScopePluginRepositoryImpl;
+import com.buschmais.jqassistant.core.scanner.api.Scanner;
+import com.buschmais.jqassistant.core.scanner.api.ScannerContext;
+import com.buschmais.jqassistant.core.scanner.api.Scope;
+import com.buschmais.jqassistant.core.scanner.impl.ScannerImpl;
+import com.buschmais.jqassistant.core.store.impl.EmbeddedGraphStore;
+import com.buschmais.xo.api.Query;
+import de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner.JavaSourceScope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Scans a source file with the full metric profile. A type used by its simple
+ * name, qualified name or as type argument counts once for the fan-out.
+ */
+public class FanOutTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private EmbeddedGraphStore store;
+
+    private ScannerPluginRepository scannerPluginRepository;
+
+    private ScopePluginRepository scopePluginRepository;
+
+    @Before
+    public void scan() throws IOException, PluginRepositoryException {
+        PluginConfigurationReader pluginConfigurationReader = new PluginConfigurationReaderImpl();
+        ModelPluginRepository modelPluginRepository = new ModelPluginRepositoryImpl(pluginConfigurationReader);
+        scannerPluginRepository = new ScannerPluginRepositoryImpl(pluginConfigurationReader);
+        scopePluginRepository = new ScopePluginRepositoryImpl(pluginConfigurationReader);
+        store = new EmbeddedGraphStore("target/fanout-store");
+        store.start(modelPluginRepository.getDescriptorTypes());
+        store.reset();
+
+        File file = new File(folder.getRoot(), "A.java");
+        String source = "package p;\n\nimport java.util.List;\nimport java.util.Map;\nimport q.Foo;\n\n"
+                + "public class A {\n"
+                + "    private List<Foo> first;\n"
+                + "    private java.util.List<String> second;\n"
+                + "    private Map<String, q.Bar> third;\n"
+                + "    private java.util.Map.Entry<Foo, Integer> fourth;\n"
+                + "    private int fifth;\n\n"
+                + "    public void put(java.util.List<? extends Foo> items, Map<String, Baz[]> map, int n, String s) {\n"
+                + "    }\n\n"
+                + "    public void clear() {\n"
+                + "    }\n"
+                + "}\n";
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+
+        Scanner scanner = new ScannerImpl(store, scannerPluginRepository.getScannerPlugins(
+                Collections.<String, Object> singletonMap(JavaSourceScannerPlugin.MetricProfileProperty(), "full")),
+                scopePluginRepository.getScopes());
+        ScannerContext context = scanner.getContext();
+        store.beginTransaction();
+        context.push(Scope.class, JavaSourceScope.CLASSPATH);
+        JavaSourceScope.CLASSPATH.create(context);
+        scanner.scan(file, "/p/A.java", JavaSourceScope.CLASSPATH);
+        JavaSourceScope.CLASSPATH.destroy(context);
+        context.pop(Scope.class);
+        store.commitTransaction();
+    }
+
+    @After
+    public void stopStore() {
+        store.stop();
+    }
+
+    @Test
+    public void fieldTypes() throws IOException {
+        // java.util.List, q.Foo, java.util.Map, q.Bar and java.util.Map.Entry
+        assertEquals(5, count("match (t:Type {fqn: 'p.A'}) return t.FANOUT as count"));
+        // The imported and the qualified list are the same type
+        assertEquals(2, count("match (:Type {fqn: 'p.A'})-[:DECLARES]->(:Field)-[:OF_TYPE]->"
+                + "(:Type {fqn: 'java.util.List'}) return count(*) as count"));
+    }
+
+    @Test
+    public void parameterTypes() throws IOException {
+        // java.util.List, q.Foo, java.util.Map and Baz
+        assertEquals(4, count("match (:Type {fqn: 'p.A'})-[:DECLARES]->(m:Method) where m.name = 'put' "
+                + "return m.FANOUT as count"));
+        assertEquals(0, count("match (:Type {fqn: 'p.A'})-[:DECLARES]->(m:Method) where m.name = 'clear' "
+                + "return m.FANOUT as count"));
+    }
+
+    private long count(String query) throws IOException {
+        store.beginTransaction();
+        try (Query.Result<Query.Result.CompositeRowObject> result = store.executeQuery(query)) {
+            return result.getSingleResult().get("count", Long.class);
+        } finally {
+            store.commitTransaction();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package de.uniulm.iai.jqassistant.javasrc.plugin.scanner;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.buschmais.jqassistant.core.plugin.api.ModelPluginRepository;
+import com.buschmais.jqassistant.core.plugin.api.PluginConfigurationReader;
+import com.buschmais.jqassistant.core.plugin.api.PluginRepositoryException;
+import com.buschmais.jqassistant.core.plugin.api.ScannerPluginRepository;
+import com.buschmais.jqassistant.core.plugin.api.ScopePluginRepository;
+import com.buschmais.jqassistant.core.plugin.impl.ModelPluginRepositoryImpl;
+import com.buschmais.jqassistant.core.plugin.impl.PluginConfigurationReaderImpl;
+import com.buschmais.jqassistant.core.plugin.impl.ScannerPluginRepositoryImpl;
+import com.buschmais.jqassistant.core.plugin.impl.ScopePluginRepositoryImpl;
+import com.buschmais.jqassistant.core.scanner.api.Scanner;
+import com.buschmais.jqassistant.core.scanner.api.ScannerContext;
+import com.buschmais.jqassistant.core.scanner.api.Scope;
+import com.buschmais.jqassistant.core.scanner.impl.ScannerImpl;
+import com.buschmais.jqassistant.core.store.impl.EmbeddedGraphStore;
+import com.buschmais.xo.api.Query;
+import de.uniulm.iai.jqassistant.javasrc.plugin.api.scanner.JavaSourceScope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.tooling.GlobalGraphOperations;
+
+/**
+ * Scans source files again after they have been changed. The graph resulting
+ * from the second scan must be the same as the graph of a fresh scan of the
+ * changed files, and the same for each number of workers.
+ */
+@RunWith(Parameterized.class)
+public class RescanTest {
+
+    /** The graphs of the test cases by their names, as dumped by the first number of workers. */
+    private static final Map<String, List<String>> dumps = new HashMap<>();
+
+    @Parameters(name = "workers={0}")
+    public static Collection<Object[]> workers() {
+        return Arrays.asList(new Object[] { 1 }, new Object[] { 4 });
+    }
+
+    private final int workers;
+
+    public RescanTest(int workers) {
+        this.workers = workers;
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private EmbeddedGraphStore store;
+
+    private ScannerPluginRepository scannerPluginRepository;
+
+    private ScopePluginRepository scopePluginRepository;
+
+    @Before
+    public void startStore() throws PluginRepositoryException {
+        PluginConfigurationReader pluginConfigurationReader = new PluginConfigurationReaderImpl();
+        ModelPluginRepository modelPluginRepository = new ModelPluginRepositoryImpl(pluginConfigurationReader);
+        scannerPluginRepository = new ScannerPluginRepositoryImpl(pluginConfigurationReader);
+        scopePluginRepository = new ScopePluginRepositoryImpl(pluginConfigurationReader);
+        store = new EmbeddedGraphStore("target/rescan-store");
+        store.start(modelPluginRepository.getDescriptorTypes());
+        store.reset();
+    }
+
+    @After
+    public void stopStore() {
+        store.stop();
+    }
+
+    @Test
+    public void rescanEqualsFreshScan() throws Exception {
+        File root = folder.newFolder("root");
+        write(root, "p/A.java", "package p;\n\nimport q.B;\nimport q.C;\nimport q.D;\n\n"
+                + "public class A extends B {\n    private C c;\n\n"
+                + "    public D d(C other) {\n        return new D();\n    }\n}\n");
+        write(root, "q/B.java", "package q;\n\npublic class B {\n    protected int b;\n}\n");
+        write(root, "q/C.java", "package q;\n\nimport r.E;\n\n"
+                + "public class C {\n    public void c(B b, E e) {\n    }\n}\n");
+        write(root, "q/D.java", "package q;\n\nimport java.util.List;\n\n"
+                + "public class D extends C implements Runnable {\n    private List<String> d;\n\n"
+                + "    public void run() {\n    }\n}\n");
+        write(root, "r/E.java", "package r;\n\npublic interface E {\n    int E = 1;\n}\n");
+        scan(root);
+
+        write(root, "p/A.java", "package p;\n\nimport q.B;\nimport q.C;\n\n"
+                + "public class A extends B implements Runnable {\n    private C c;\n\n"
+                + "    public void run() {\n        c.c(this);\n    }\n}\n");
+        Files.move(new File(root, "q/B.java").toPath(), new File(root, "q/Bee.java").toPath());
+        Files.delete(new File(root, "q/D.java").toPath());
+        Files.delete(new File(root, "r/E.java").toPath());
+        scan(root);
+        List<String> rescanned = dump();
+
+        store.reset();
+        scan(root);
+        assertEquals(dump(), rescanned);
+        assertSameForAllWorkers("rescanEqualsFreshScan", rescanned);
+    }
+
+    @Test
+    public void samePathBelowSeveralRoots() throws Exception {
+        File first = folder.newFolder("first");
+        File second = folder.newFolder("second");
+        write(first, "p/A.java", "package p;\n\npublic class A {\n}\n");
+        write(second, "p/A.java", "package p;\n\npublic class A {\n    private int a;\n}\n");
+        scan(first, second);
+        scan(first, second);
+        List<String> rescanned = dump();
+
+        store.reset();
+        scan(first, second);
+        assertEquals(dump(), rescanned);
+        assertEquals(2, count("match (cu:JavaCompilationUnit) return count(cu) as count"));
+        assertSameForAllWorkers("samePathBelowSeveralRoots", rescanned);
+    }
+
+    /**
+     * Assert that the graph of the given test case is the same as the one of
+     * the test case run before with another number of workers, apart from the
+     * locations and modification times of the files written by each run.
+     */
+    private void assertSameForAllWorkers(String testCase, List<String> dump) {
+        List<String> graph = new ArrayList<>();
+        for (String line : dump) {
+            graph.add(line.replace(folder.getRoot().getPath(), "").replaceAll("lastModified=\\d+", "lastModified"));
+        }
+        List<String> previous = dumps.get(testCase);
+        if (previous == null) {
+            dumps.put(testCase, graph);
+        } else {
+            assertEquals(previous, graph);
+        }
+    }
+
+    private void write(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Scan the java sources below the given roots within one scope, each by
+     * its path relative to its root.
+     */
+    private void scan(File... roots) throws PluginRepositoryException {
+        Scanner scanner = new ScannerImpl(store, scannerPluginRepository.getScannerPlugins(
+                Collections.<String, Object> singletonMap(JavaSourceScannerPlugin.WorkersProperty(), workers)),
+                scopePluginRepository.getScopes());
+        ScannerContext context = scanner.getContext();
+        store.beginTransaction();
+        context.push(Scope.class, JavaSourceScope.CLASSPATH);
+        JavaSourceScope.CLASSPATH.create(context);
+        for (File root : roots) {
+            File[] directories = root.listFiles();
+            Arrays.sort(directories);
+            for (File directory : directories) {
+                File[] files = directory.listFiles();
+                Arrays.sort(files);
+                for (File file : files) {
+                    scanner.scan(file, "/" + directory.getName() + "/" + file.getName(), JavaSourceScope.CLASSPATH);
+                }
+            }
+        }
+        JavaSourceScope.CLASSPATH.destroy(context);
+        context.pop(Scope.class);
+        store.commitTransaction();
+    }
+
+    /**
+     * Return all nodes and relations of the store, each with its labels and
+     * properties, in a stable order.
+     */
+    private List<String> dump() {
+        List<String> lines = new ArrayList<>();
+        store.beginTransaction();
+        GlobalGraphOperations operations = GlobalGraphOperations.at(store.getGraphDatabaseService());
+        for (Node node : operations.getAllNodes()) {
+            lines.add(describe(node));
+        }
+        for (Relationship relationship : operations.getAllRelationships()) {
+            lines.add(describe(relationship.getStartNode()) + " -" + relationship.getType().name() + "-> "
+                    + describe(relationship.getEndNode()));
+        }
+        store.commitTransaction();
+        Collections.sort(lines);
+        return lines;
+    }
+
+    private String describe(Node node) {
+        List<String> labels = new ArrayList<>();
+        for (Label label : node.getLabels()) {
+            labels.add(label.name());
+        }
+        Collections.sort(labels);
+        Map<String, Object> properties = new TreeMap<>();
+        for (String key : node.getPropertyKeys()) {
+            properties.put(key, node.getProperty(key));
+        }
+        return labels + "" + properties;
+    }
+
+    private long count(String query) throws IOException {
+        store.beginTransaction();
+        try (Query.Result<Query.Result.CompositeRowObject> result = store.executeQuery(query)) {
+            return result.getSingleResult().get("count", Long.class);
+        } finally {
+            store.commitTransaction();
+        }
+    }
+}
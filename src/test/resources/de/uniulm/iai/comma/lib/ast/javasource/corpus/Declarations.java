@@ -0,0 +1,127 @@
+@Deprecated
+package sample;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+import static java.lang.Math.max;
+
+/**
+ * Declarations of all kinds.
+ */
+@SuppressWarnings({ "unchecked", "rawtypes" })
+public abstract class Declarations<K extends Comparable<? super K>, V> extends Object implements Serializable, Cloneable {
+
+    public static final long serialVersionUID = 1L;
+
+    private transient volatile int a, b = 1, c[] = { 1, 2, 3 };
+
+    protected Map<K, List<Map<String, V>>> nested;
+
+    int[][] matrix = new int[3][], other[] = new int[][] { { 1 }, { 2, 3 } };
+
+    static {
+        System.out.println("static");
+    }
+
+    {
+        a = 2;
+    }
+
+    public Declarations() {
+        this(0);
+    }
+
+    <T> Declarations(T t, int... rest) throws IOException, RuntimeException {
+        super();
+    }
+
+    Declarations(int value) {
+        this.<String>init(value);
+    }
+
+    private <T> void init(int value) {
+    }
+
+    public abstract <T extends Number & Comparable<T>> T max(T[] values) throws IllegalStateException;
+
+    synchronized native int nativeMethod(final long l, @Deprecated String s);
+
+    strictfp double legacyArray(int a)[] {
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString();
+    }
+
+    protected interface Visitor<R> extends Cloneable, Serializable {
+        int CONSTANT = 1;
+
+        R visit(Object o) throws Exception;
+
+        <T> void generic(List<? extends T> list);
+    }
+
+    enum Color implements Visitor<String> {
+        RED("r") {
+            @Override
+            public String visit(Object o) {
+                return "red";
+            }
+        },
+        GREEN("g"),
+        BLUE("b");
+
+        private final String code;
+
+        private Color(String code) {
+            this.code = code;
+        }
+
+        public String visit(Object o) {
+            return code;
+        }
+
+        public <T> void generic(List<? extends T> list) {
+        }
+    }
+
+    enum Empty {
+        ;
+        static void nothing() {
+        }
+    }
+
+    @interface Marker {
+        String value() default "marker";
+
+        int[] numbers() default { 1, 2 };
+
+        Class<?> type() default Object.class;
+
+        Color color() default Color.RED;
+
+        int CONSTANT = 1;
+
+        enum Nested { A, B }
+    }
+
+    static class Inner<T> extends Declarations<String, T> {
+        public <X extends Comparable<X>> X max(X[] values) {
+            return values[0];
+        }
+
+        class InnerInner {
+            Inner<T> outer() {
+                return Inner.this;
+            }
+        }
+    }
+
+    ;
+}
+
+interface TopLevel {
+}
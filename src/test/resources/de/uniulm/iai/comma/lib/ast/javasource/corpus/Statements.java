@@ -0,0 +1,194 @@
+package sample;
+
+import java.util.*;
+
+/** Statements and expressions of all kinds. */
+class Statements {
+
+    int field;
+
+    Statements next;
+
+    int[] array = new int[10];
+
+    int statements(int a, final List<String> list, Map.Entry<String, ? extends Number>... entries) throws Exception {
+        int i = 0, j[] = { 1 }, k;
+        final String s = "s";
+        List<Map<String, List<Integer>>> nested = new ArrayList<Map<String, List<Integer>>>();
+        Map<String, Integer>[] maps = null;
+        java.util.List<String> qualified = java.util.Collections.<String>emptyList();
+
+        if (a > 0) {
+            a--;
+        } else if (a < 0) {
+            a++;
+        } else
+            a = 0;
+
+        for (int x = 0, y = 1; x < a; x++, y--) {
+            continue;
+        }
+        for (i = 0; i < 10; ++i) ;
+        for (;;) {
+            break;
+        }
+        for (String e : list) {
+            System.out.println(e);
+        }
+        for (final Map.Entry<String, ? extends Number> e : entries) {
+        }
+
+        while (i-- > 0) {
+            i >>>= 1;
+        }
+        do {
+            i += 2;
+        } while (i < 100);
+
+        outer:
+        for (int x = 0; x < 10; x++) {
+            inner:
+            while (true) {
+                if (x > 5) break outer;
+                else continue outer;
+            }
+        }
+
+        switch (a) {
+            case 1:
+            case 2:
+                a = 3;
+                break;
+            default:
+                a = 4;
+            case 5: {
+                a = 5;
+            }
+        }
+
+        try {
+            throw new IllegalStateException("test");
+        } catch (IllegalStateException e) {
+            a = 1;
+        } catch (RuntimeException e) {
+            a = 2;
+        } finally {
+            a = 3;
+        }
+        try {
+            a = 4;
+        } finally {
+            a = 5;
+        }
+
+        synchronized (this) {
+            a = 6;
+        }
+
+        assert a > 0;
+        assert a > 0 : "positive";
+
+        class Local {
+            int value() {
+                return 1;
+            }
+        }
+        final class FinalLocal {
+        }
+        abstract class AbstractLocal {
+        }
+        new Local().value();
+
+        return a;
+    }
+
+    Object expressions(Object o, int a, int b, String[] args) {
+        int x = a + b - a * b / 2 % 3;
+        x = (a << 2) >> 1 >>> 3;
+        x = a & b | a ^ ~b;
+        boolean c = a < b && a <= b || a > b && a >= b || a == b && a != b;
+        c = !c ? c : !(a > b);
+        x = -a + +b;
+        x = ++a + b++ - --a - b--;
+        x += 1; x -= 1; x *= 1; x /= 1; x %= 1; x &= 1; x |= 1; x ^= 1; x <<= 1; x >>= 1; x >>>= 1;
+        c = o instanceof String;
+        c = o instanceof List<?>;
+
+        // casts and parenthesized expressions
+        String s = (String) o;
+        x = (int) 1.5;
+        x = (int) -a;
+        long l = (long) +a;
+        double d = (double) (a + b);
+        Object[] objects = (Object[]) args;
+        int[] ints = (int[]) o;
+        List<String> list = (List<String>) o;
+        x = (a) + b;
+        x = (a) - b;
+        c = (a) < b;
+        c = (a) > b;
+        x = (Integer) o + 1;
+        x = ((Integer) o).intValue();
+        c = !(Boolean) o;
+        s = (String) (Object) s;
+        x = (a);
+        x = (array)[0];
+        x = ((Statements) o).array[1];
+        Class<?> type = (int.class);
+        type = int[].class;
+        type = String[][].class;
+        type = void.class;
+        type = Statements.class;
+
+        // literals
+        x = 0x1F + 017 + 0 + 1L > 0 ? 1 : 0;
+        d = 1.5e10 + .5 + 1f + 2d;
+        char ch = '\n';
+        s = "string\t" + null + true + false;
+
+        // method calls, fields and arrays
+        s.length();
+        this.field = super.hashCode();
+        next.next.field = field;
+        this.next.array[0] = array[1];
+        array[a + 1]++;
+        x = array[array[0]];
+        x = args[0].length();
+        x = expressions(null, 1, 2, new String[] { "a" }).hashCode();
+        x = Statements.this.field;
+        Collections.<String>emptyList().size();
+        this.<String>generic();
+
+        // creators
+        Object[][] multi = new Object[a][b];
+        int[][] partial = new int[a][];
+        int[] init = new int[] { 1, 2, 3 };
+        x = new int[3][4][a].length;
+        x = new int[] { 1 }[0];
+        String[] strings = new String[] { "a", "b", };
+        List<String> created = new ArrayList<String>(10);
+        Runnable r = new Runnable() {
+            public void run() {
+                field++;
+            }
+        };
+        Statements.Inner inner = this.new Inner();
+        Comparator<String> cmp = new Comparator<String>() {
+            public int compare(String a, String b) {
+                return a.compareTo(b);
+            }
+        };
+        return new Object() {
+            int value = 1;
+        };
+    }
+
+    <T> void generic() {
+    }
+
+    class Inner {
+        Inner() {
+            Statements.this.super();
+        }
+    }
+}
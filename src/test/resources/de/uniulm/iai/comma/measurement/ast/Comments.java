@@ -0,0 +1,41 @@
+/*
+ * License header
+ * of two lines
+ */
+// A line comment after the header
+package p; // trailing the package
+
+/* before the import */
+import java.util.List; // trailing the import
+
+/**
+ * Javadoc of the class.
+ */
+@Deprecated
+public class Comments { // trailing the class
+
+    /** Javadoc of the field. */
+    private int a; // trailing the field
+
+    private List<String> b /* within */ ;
+
+    /**
+     * Javadoc of the method.
+     *
+     * @param x The value.
+     */
+    public int m(int x) {
+        // leading the statement
+        int y = x; /* trailing block */ // and line
+        /* before the return */ return y // before the operator
+            + 1;
+    }
+
+    /** Javadoc of the nested type. */
+    static class Nested {
+        // the only content
+    }
+} // trailing the type
+// before the end of the file
+/* the last comment */
+/* no newline at the end */
\ No newline at end of file
@@ -0,0 +1,10 @@
+package p;
+
+class End {
+
+    void end() {
+    }
+}
+
+// behind the type
+/* the last comment */
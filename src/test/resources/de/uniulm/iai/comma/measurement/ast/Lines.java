@@ -0,0 +1,73 @@
+/*
+ * Header of the file
+ */
+package p;
+
+import java.util.List;
+
+/**
+ * Javadoc of the type.
+ */
+public class Lines {
+
+    // a comment only
+    private int a; // code with a trailing comment
+
+    /* leading */ private int b;
+
+    private String s = "a"
+        + "b";
+
+    int first() {
+        /*
+         * a comment of
+         * several lines
+         */
+        return a
+            + b;
+    }
+
+    int second(List<String> list) {
+        int n = 0; /* a block
+            comment */ n++;
+        /* a comment
+           of two lines */
+        n += list.size() * 1;
+        // step 2
+        n += list.size() * 3;
+
+        n += list.size() * 5;
+        // step 6
+        n += list.size() * 7;
+
+        n += list.size() * 9;
+        // step 10
+        n += list.size() * 11;
+
+        n += list.size() * 13;
+        // step 14
+        n += list.size() * 15;
+
+        n += list.size() * 17;
+        // step 18
+        n += list.size() * 19;
+
+        n += list.size() * 21;
+        // step 22
+        n += list.size() * 23;
+
+        n += list.size() * 25;
+        // step 26
+        n += list.size() * 27;
+
+        n += list.size() * 29;
+        // step 30
+        n += list.size() * 31;
+
+        n += list.size() * 33;
+        // step 34
+        n += list.size() * 35;
+
+        return n;
+    }
+}
\ No newline at end of file
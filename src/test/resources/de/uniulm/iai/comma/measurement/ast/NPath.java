@@ -0,0 +1,155 @@
+package p;
+
+import java.util.List;
+
+public abstract class NPath {
+    private int state;
+
+    public NPath(int state) {
+        this.state = state > 0 ? state : 0;
+    }
+
+    abstract void none();
+
+    void empty() {
+    }
+
+    int ifElseChain(int a, int b) {
+        if (a > b) {
+            a++;
+        } else if (a < b) {
+            b++;
+        } else if (a == 0) {
+            return 0;
+        } else {
+            a = b;
+        }
+        if (b > 1) {
+            b--;
+        }
+        return a + b;
+    }
+
+    int loops(List<String> items, int n) {
+        int count = 0;
+        while (count < n && n > 0) {
+            count++;
+        }
+        do {
+            count--;
+            if (count == 5) {
+                break;
+            }
+        } while (count > 0 || n < 0);
+        for (int i = 0, j = n; i < j; i++, j--) {
+            count += i;
+        }
+        for (;;) {
+            break;
+        }
+        for (String item : items) {
+            if (item.isEmpty()) {
+                continue;
+            }
+            count += item.length();
+        }
+        return count;
+    }
+
+    void tryCatchFinally(String value) {
+        try {
+            Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            state = -1;
+        }
+        try {
+            if (value.isEmpty()) {
+                state = 0;
+            }
+            Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            state = -1;
+        } catch (RuntimeException e) {
+            state = -2;
+        } finally {
+            if (state < 0) {
+                state = 0;
+            }
+        }
+        try {
+            state++;
+        } finally {
+            state--;
+        }
+    }
+
+    int switchFallThrough(int a) {
+        int result = 0;
+        switch (a) {
+            case 1:
+                result++;
+            case 2:
+            case 3:
+                if (result > 0) {
+                    result++;
+                }
+                break;
+            case 4:
+                return 4;
+            default:
+                result = -1;
+        }
+        switch (a > 0 ? a : -a) {
+            case 0:
+                break;
+        }
+        return result;
+    }
+
+    boolean ternaryAndLogical(int a, int b, boolean c) {
+        int max = a > b ? a : b;
+        int min = a < b ? (a < 0 ? 0 : a) : b;
+        if (a > 0 && b > 0 || c) {
+            return max > min && !c;
+        }
+        return c || a == b && b == max || min == 0;
+    }
+
+    int saturated(int a) {
+        if (a == 1) { a++; } else { a--; }
+        if (a == 2) { a++; } else { a--; }
+        if (a == 3) { a++; } else { a--; }
+        if (a == 4) { a++; } else { a--; }
+        if (a == 5) { a++; } else { a--; }
+        if (a == 6) { a++; } else { a--; }
+        if (a == 7) { a++; } else { a--; }
+        if (a == 8) { a++; } else { a--; }
+        if (a == 9) { a++; } else { a--; }
+        if (a == 10) { a++; } else { a--; }
+        if (a == 11) { a++; } else { a--; }
+        if (a == 12) { a++; } else { a--; }
+        if (a == 13) { a++; } else { a--; }
+        if (a == 14) { a++; } else { a--; }
+        while (a > 0) {
+            a--;
+        }
+        return a;
+    }
+
+    int belowThreshold(int a) {
+        if (a == 1) { a++; } else { a--; }
+        if (a == 2) { a++; } else { a--; }
+        if (a == 3) { a++; } else { a--; }
+        if (a == 4) { a++; } else { a--; }
+        if (a == 5) { a++; } else { a--; }
+        if (a == 6) { a++; } else { a--; }
+        if (a == 7) { a++; } else { a--; }
+        if (a == 8) { a++; } else { a--; }
+        if (a == 9) { a++; } else { a--; }
+        if (a == 10) { a++; } else { a--; }
+        if (a == 11) { a++; } else { a--; }
+        if (a == 12) { a++; } else { a--; }
+        if (a == 13) { a++; } else { a--; }
+        return a;
+    }
+}
@@ -0,0 +1,43 @@
+package p;
+
+import java.util.List;
+import java.util.Map;
+
+public class Signatures<T> {
+    public Signatures(String... names) {
+    }
+
+    Signatures(int a, String... names) {
+    }
+
+    void plain() {
+    }
+
+    void arrays(int[] a, String[][] b, final long c[]) {
+    }
+
+    void generics(List<String> l, Map<String, List<Integer>> m, List<? extends Number> n, Class<? super T> c) {
+    }
+
+    void qualified(java.util.List<java.io.File> l, java.util.Map.Entry<String, Object> e) {
+    }
+
+    <E extends Comparable<E>> void typed(E e, E... more) {
+    }
+
+    void varargs(final java.lang.Object... objects) {
+    }
+
+    void genericVarargs(List<String>... lists) {
+    }
+
+    void arrayVarargs(int a, int[]... arrays) {
+    }
+
+    void mapVarargs(Map<String, Integer>... maps) {
+    }
+
+    @interface Annotation {
+        String value();
+    }
+}